@@ -0,0 +1,20 @@
+package bg.tuvarna.devicebackend.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries cache invalidation messages between all running instances of the service.
+ * Listeners receive every message published on their channel, including the ones published
+ * by their own instance, so payloads should identify the sender when that matters.
+ */
+public interface InvalidationBus {
+    /**
+     * Delivered to every listener after the bus (re)connects, messages may have been missed
+     * in between and caches should drop everything they hold.
+     */
+    String RESYNC = "*";
+
+    void publish(String channel, String payload);
+
+    void subscribe(String channel, Consumer<String> listener);
+}
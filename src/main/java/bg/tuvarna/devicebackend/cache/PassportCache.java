@@ -0,0 +1,138 @@
+package bg.tuvarna.devicebackend.cache;
+
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.repositories.PassportRepository;
+import bg.tuvarna.devicebackend.utils.SerialPrefixTrie;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps every passport in memory so serial numbers can be resolved without a database round trip.
+ * The trie is loaded on first use and then patched after each create, update and delete,
+ * readers always see a complete snapshot.
+ * Every change is also published on the {@link InvalidationBus}, the other instances then reload
+ * the changed passport from the database and patch their own trie.
+ */
+@Component
+public class PassportCache {
+    public static final String CHANNEL = "passport_changes";
+
+    private final PassportRepository passportRepository;
+    private final InvalidationBus invalidationBus;
+    private final boolean enabled;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicReference<SerialPrefixTrie> trie = new AtomicReference<>();
+
+    public PassportCache(
+            PassportRepository passportRepository,
+            InvalidationBus invalidationBus,
+            @Value("${passports.serial-index.enabled:true}") boolean enabled
+    ) {
+        this.passportRepository = passportRepository;
+        this.invalidationBus = invalidationBus;
+        this.enabled = enabled;
+
+        invalidationBus.subscribe(CHANNEL, this::onInvalidation);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Passport findBySerialId(String serialId) {
+        return snapshot().find(serialId);
+    }
+
+    public void put(Passport passport) {
+        if (enabled) {
+            patch(current -> current.with(copyOf(passport)));
+        }
+        invalidationBus.publish(CHANNEL, instanceId + ":" + passport.getId());
+    }
+
+    public void evict(Long id) {
+        if (enabled) {
+            patch(current -> current.without(id));
+        }
+        invalidationBus.publish(CHANNEL, instanceId + ":" + id);
+    }
+
+    public synchronized void reload() {
+        if (enabled) {
+            trie.set(load());
+        }
+    }
+
+    public SerialPrefixTrie snapshot() {
+        SerialPrefixTrie current = trie.get();
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = trie.get();
+            if (current == null) {
+                current = load();
+                trie.set(current);
+            }
+            return current;
+        }
+    }
+
+    private void onInvalidation(String message) {
+        if (!enabled) {
+            return;
+        }
+
+        if (InvalidationBus.RESYNC.equals(message)) {
+            synchronized (this) {
+                trie.set(null);
+            }
+            return;
+        }
+
+        int separator = message.lastIndexOf(':');
+        if (message.substring(0, separator).equals(instanceId)) {
+            return;
+        }
+
+        Long id = Long.valueOf(message.substring(separator + 1));
+        passportRepository.findById(id).ifPresentOrElse(
+                passport -> patch(current -> current.with(copyOf(passport))),
+                () -> patch(current -> current.without(id))
+        );
+    }
+
+    private synchronized void patch(UnaryOperator<SerialPrefixTrie> change) {
+        SerialPrefixTrie current = trie.get();
+        // Not loaded yet, the first read will see the committed change anyway.
+        if (current != null) {
+            trie.set(change.apply(current));
+        }
+    }
+
+    private SerialPrefixTrie load() {
+        return SerialPrefixTrie.of(
+                passportRepository.findAll()
+                        .stream()
+                        .map(PassportCache::copyOf)
+                        .toList()
+        );
+    }
+
+    private static Passport copyOf(Passport passport) {
+        return Passport.builder()
+                .id(passport.getId())
+                .name(passport.getName())
+                .model(passport.getModel())
+                .serialPrefix(passport.getSerialPrefix())
+                .fromSerialNumber(passport.getFromSerialNumber())
+                .toSerialNumber(passport.getToSerialNumber())
+                .warrantyMonths(passport.getWarrantyMonths())
+                .build();
+    }
+}
@@ -0,0 +1,138 @@
+package bg.tuvarna.devicebackend.cache;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Bus on top of PostgreSQL LISTEN/NOTIFY, so every instance connected to the same database sees
+ * the messages. One connection is kept for the listener thread, which blocks on the socket until a
+ * notification arrives. After every (re)connect listeners get {@link InvalidationBus#RESYNC}.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.invalidation.bus", havingValue = "postgres")
+public class PostgresInvalidationBus implements InvalidationBus, SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(PostgresInvalidationBus.class);
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_]+");
+    private static final int WAIT_MILLIS = 5_000;
+    private static final long RECONNECT_DELAY_MILLIS = 2_000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private Thread thread;
+
+    public PostgresInvalidationBus(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void publish(String channel, String payload) {
+        jdbcTemplate.query("select pg_notify(?, ?)", (RowCallbackHandler) rs -> { }, channel, payload);
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid channel name: " + channel);
+        }
+        listeners.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        thread = new Thread(this::listen, "invalidation-bus");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                Set<String> listening = new HashSet<>();
+
+                listenToNewChannels(connection, listening);
+                listeners.keySet().forEach(channel -> dispatch(channel, RESYNC));
+
+                while (running) {
+                    listenToNewChannels(connection, listening);
+
+                    PGNotification[] notifications = pgConnection.getNotifications(WAIT_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getName(), notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Invalidation bus connection lost, reconnecting", e);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void listenToNewChannels(Connection connection, Set<String> listening) throws SQLException {
+        for (String channel : listeners.keySet()) {
+            if (listening.add(channel)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+            }
+        }
+    }
+
+    private void dispatch(String channel, String payload) {
+        for (Consumer<String> listener : listeners.getOrDefault(channel, List.of())) {
+            try {
+                listener.accept(payload);
+            } catch (RuntimeException e) {
+                logger.error("Invalidation listener failed for channel {}", channel, e);
+            }
+        }
+    }
+}
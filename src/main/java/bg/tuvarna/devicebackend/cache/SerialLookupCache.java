@@ -0,0 +1,63 @@
+package bg.tuvarna.devicebackend.cache;
+
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.utils.ExpiringCache;
+import bg.tuvarna.devicebackend.utils.SingleFlight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Sits in front of serial number resolution: serials that matched no passport are remembered for
+ * a short time, and concurrent lookups of the same serial share a single resolution.
+ * Any passport change, on this or another instance, clears the remembered misses.
+ * Each change also bumps a generation, a miss is only remembered if no change arrived since its
+ * lookup started, so a lookup still running during a change can't hide the changed passport.
+ */
+@Component
+public class SerialLookupCache {
+    private final ExpiringCache<String, Boolean> unknownSerials;
+    private final SingleFlight<String, Lookup> lookups = new SingleFlight<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public SerialLookupCache(
+            InvalidationBus invalidationBus,
+            @Value("${passports.negative-cache.max-size:10000}") int maxSize,
+            @Value("${passports.negative-cache.ttl:30s}") Duration ttl
+    ) {
+        this.unknownSerials = new ExpiringCache<>(maxSize, ttl);
+
+        invalidationBus.subscribe(PassportCache.CHANNEL, message -> {
+            generation.incrementAndGet();
+            unknownSerials.invalidateAll();
+        });
+    }
+
+    /**
+     * @return the passport found by the resolver, or null when the serial is known to have none
+     */
+    public Passport resolve(String serialId, Supplier<Passport> resolver) {
+        if (unknownSerials.get(serialId) != null) {
+            return null;
+        }
+
+        Lookup lookup = lookups.execute(serialId, () -> {
+            long started = generation.get();
+            return new Lookup(started, resolver.get());
+        });
+        if (lookup.passport() == null && lookup.generation() == generation.get()) {
+            unknownSerials.put(serialId, Boolean.TRUE);
+            // A change that arrived between the check and the put has cleared the cache before our put.
+            if (lookup.generation() != generation.get()) {
+                unknownSerials.invalidate(serialId);
+            }
+        }
+        return lookup.passport();
+    }
+
+    private record Lookup(long generation, Passport passport) {
+    }
+}
@@ -0,0 +1,79 @@
+package bg.tuvarna.devicebackend.cache;
+
+import bg.tuvarna.devicebackend.models.dtos.UserVO;
+import bg.tuvarna.devicebackend.repositories.UserRepository;
+import bg.tuvarna.devicebackend.utils.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Short lived cache of user profiles, as returned by the profile endpoints.
+ * Entries are evicted when the user or one of their devices changes, the eviction is also
+ * published on the {@link InvalidationBus} so the other instances drop their copy.
+ * Changes made elsewhere (renovations, passport names) show up once the entry expires.
+ */
+@Component
+public class UserProfileCache {
+    public static final String CHANNEL = "user_changes";
+
+    private final UserRepository userRepository;
+    private final InvalidationBus invalidationBus;
+    private final TransactionTemplate transactionTemplate;
+    private final ExpiringCache<Long, UserVO> profiles;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public UserProfileCache(
+            UserRepository userRepository,
+            InvalidationBus invalidationBus,
+            PlatformTransactionManager transactionManager,
+            @Value("${users.profile-cache.max-size:10000}") int maxSize,
+            @Value("${users.profile-cache.ttl:30s}") Duration ttl
+    ) {
+        this.userRepository = userRepository;
+        this.invalidationBus = invalidationBus;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.profiles = new ExpiringCache<>(maxSize, ttl);
+
+        invalidationBus.subscribe(CHANNEL, this::onInvalidation);
+    }
+
+    /**
+     * @return the profile, null when there is no such user
+     */
+    public UserVO get(Long id) {
+        UserVO profile = profiles.get(id);
+        if (profile != null) {
+            return profile;
+        }
+
+        // Built inside a transaction, so nothing the view reads is detached yet.
+        profile = transactionTemplate.execute(status -> userRepository.findProfileById(id).map(UserVO::new).orElse(null));
+        if (profile != null) {
+            profiles.put(id, profile);
+        }
+        return profile;
+    }
+
+    public void evict(Long id) {
+        profiles.invalidate(id);
+        invalidationBus.publish(CHANNEL, instanceId + ":" + id);
+    }
+
+    private void onInvalidation(String message) {
+        if (InvalidationBus.RESYNC.equals(message)) {
+            profiles.invalidateAll();
+            return;
+        }
+
+        int separator = message.lastIndexOf(':');
+        if (!message.substring(0, separator).equals(instanceId)) {
+            profiles.invalidate(Long.valueOf(message.substring(separator + 1)));
+        }
+    }
+}
@@ -1,41 +1,84 @@
 package bg.tuvarna.devicebackend.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.ProviderManager;
-import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.util.Collections;
 
 @Configuration
 @AllArgsConstructor
 public class ApplicationConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ApplicationConfig.class);
+
     private final UserDetailsServiceConfig userDetailsService;
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
-        return authProvider;
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
+        return new CredentialsAuthenticationProvider(userDetailsService, passwordEncoder);
     }
 
     @Bean
-    public AuthenticationManager authenticationManager() {
+    public AuthenticationManager authenticationManager(AuthenticationProvider authenticationProvider) {
         return new ProviderManager(
                 Collections.singletonList(
-                        authenticationProvider()
+                        authenticationProvider
                 )
         );
     }
 
+    /**
+     * Loads the signing keys from the configured keystore, so every instance accepts the tokens of
+     * the others and tokens survive restarts. Without a keystore each instance signs with its own random key,
+     * unless {@code jwt.keystore.required} is set as in the prod profile, then startup fails.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10);
+    public JwtKeyRing jwtKeyRing(
+            ResourceLoader resourceLoader,
+            @Value("${jwt.keystore.location:}") String location,
+            @Value("${jwt.keystore.type:PKCS12}") String type,
+            @Value("${jwt.keystore.password:}") String password,
+            @Value("${jwt.keystore.signing-alias:}") String signingAlias,
+            @Value("${jwt.keystore.required:false}") boolean required
+    ) throws IOException, GeneralSecurityException {
+        if (location.isBlank()) {
+            if (required) {
+                throw new IllegalStateException("jwt.keystore.location is not set, set JWT_KEYSTORE_LOCATION to the signing keystore");
+            }
+            logger.warn("jwt.keystore.location is not set, signing tokens with a random key valid only on this instance");
+            return JwtKeyRing.random();
+        }
+        return JwtKeyRing.load(resourceLoader.getResource(location), type, password.toCharArray(), signingAlias);
+    }
+
+    /**
+     * @param threads hashing threads, 0 uses one per available core
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${auth.password.threads:0}") int threads,
+            @Value("${auth.password.queue-capacity:64}") int queueCapacity,
+            @Value("${auth.password.retry-after-seconds:1}") long retryAfterSeconds
+    ) {
+        return new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(10),
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                queueCapacity,
+                retryAfterSeconds,
+                meterRegistry
+        );
     }
-}
\ No newline at end of file
+}
@@ -3,19 +3,20 @@ package bg.tuvarna.devicebackend.config;
 import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
 import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
 import bg.tuvarna.devicebackend.controllers.exceptions.ErrorResponse;
+import bg.tuvarna.devicebackend.controllers.exceptions.ServiceBusyException;
 import bg.tuvarna.devicebackend.models.dtos.AuthResponseDTO;
+import bg.tuvarna.devicebackend.models.dtos.UserCredentials;
 import bg.tuvarna.devicebackend.models.dtos.UserLoginDTO;
 import bg.tuvarna.devicebackend.models.dtos.UserVO;
-import bg.tuvarna.devicebackend.models.entities.User;
 import bg.tuvarna.devicebackend.services.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.gson.Gson;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationServiceException;
@@ -25,7 +26,6 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.AuthenticationConverter;
 import org.springframework.security.web.authentication.AuthenticationFilter;
-import org.springframework.web.util.ContentCachingRequestWrapper;
 
 import java.io.IOException;
 
@@ -50,9 +50,9 @@ public class AuthFilter {
 
     private void successHandler(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, Authentication authentication) {
         if (authentication.isAuthenticated()) {
-            User principal = (User) authentication.getPrincipal();
-            String token = jwtService.generateToken(userService.getUserById(principal.getId()));
-            UserVO userVO = new UserVO(principal);
+            UserCredentials credentials = (UserCredentials) authentication.getPrincipal();
+            String token = jwtService.generateToken(credentials);
+            UserVO userVO = userService.getProfile(credentials.id());
             AuthResponseDTO responseDTO = new AuthResponseDTO(token, userVO);
             httpServletResponse.setStatus(HttpServletResponse.SC_OK);
             httpServletResponse.setContentType("application/json");
@@ -68,6 +68,14 @@ public class AuthFilter {
     private void failureHandler(HttpServletRequest request,
                                 HttpServletResponse response,
                                 AuthenticationException e) throws IOException {
+        if (e.getCause() instanceof ServiceBusyException busy) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(busy.getRetryAfterSeconds()));
+            response.setContentType("application/json");
+            objectMapper.writeValue(response.getWriter(), new ErrorResponse(busy));
+            return;
+        }
+
         response.setStatus(HttpStatus.UNAUTHORIZED.value());
         response.setContentType("application/json");
 
@@ -84,11 +92,9 @@ public class AuthFilter {
 
     private Authentication authConverter(HttpServletRequest request) {
         try {
-            ContentCachingRequestWrapper requestWrapper = new ContentCachingRequestWrapper(request);
-            Gson gson = new Gson();
-            UserLoginDTO userLoginDTO = gson.fromJson(requestWrapper.getReader(), UserLoginDTO.class);
-            User user = userService.getUserByUsername(userLoginDTO.getUsername());
-            return new UsernamePasswordAuthenticationToken(user.getId(), userLoginDTO.getPassword());
+            UserLoginDTO userLoginDTO = objectMapper.readValue(request.getInputStream(), UserLoginDTO.class);
+            UserCredentials credentials = userService.getCredentialsByUsername(userLoginDTO.getUsername());
+            return new UsernamePasswordAuthenticationToken(credentials, userLoginDTO.getPassword());
         } catch (IOException | CustomException e) {
             throw new AuthenticationServiceException("Wrong credentials!");
         }
@@ -0,0 +1,56 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.controllers.exceptions.ServiceBusyException;
+import bg.tuvarna.devicebackend.models.dtos.UserCredentials;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.AbstractUserDetailsAuthenticationProvider;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Password authentication that takes the {@link UserCredentials} the login filter already loaded
+ * from the token instead of reading the user again. Tokens carrying only a user id still go
+ * through the {@link UserDetailsService}. A saturated password encoder is reported as an internal
+ * authentication error carrying the {@link ServiceBusyException}, not as wrong credentials.
+ */
+public class CredentialsAuthenticationProvider extends AbstractUserDetailsAuthenticationProvider {
+    private final UserDetailsService userDetailsService;
+    private final PasswordEncoder passwordEncoder;
+
+    public CredentialsAuthenticationProvider(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
+        this.userDetailsService = userDetailsService;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    @Override
+    protected UserDetails retrieveUser(String username, UsernamePasswordAuthenticationToken authentication)
+            throws AuthenticationException {
+        if (authentication.getPrincipal() instanceof UserCredentials credentials) {
+            return credentials;
+        }
+        return userDetailsService.loadUserByUsername(username);
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails, UsernamePasswordAuthenticationToken authentication)
+            throws AuthenticationException {
+        if (authentication.getCredentials() == null) {
+            throw new BadCredentialsException("Wrong credentials!");
+        }
+
+        boolean matches;
+        try {
+            matches = passwordEncoder.matches(authentication.getCredentials().toString(), userDetails.getPassword());
+        } catch (ServiceBusyException e) {
+            throw new InternalAuthenticationServiceException(e.getMessage(), e);
+        }
+
+        if (!matches) {
+            throw new BadCredentialsException("Wrong credentials!");
+        }
+    }
+}
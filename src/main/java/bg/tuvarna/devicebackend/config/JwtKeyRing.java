@@ -0,0 +1,89 @@
+package bg.tuvarna.devicebackend.config;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The keys tokens are signed and verified with, identified by the {@code kid} token header.
+ * Every key of the ring verifies tokens, only the signing one issues new tokens, so a key can be
+ * rotated by adding the new key to all instances first, switching the signing alias next and
+ * dropping the old key once the tokens it signed have expired.
+ */
+public class JwtKeyRing {
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private final Map<String, SecretKey> keys;
+    private final String signingKeyId;
+
+    public JwtKeyRing(Map<String, SecretKey> keys, String signingKeyId) {
+        if (!keys.containsKey(signingKeyId)) {
+            throw new IllegalArgumentException("Signing key " + signingKeyId + " is not in the key ring");
+        }
+        this.keys = Map.copyOf(keys);
+        this.signingKeyId = signingKeyId;
+    }
+
+    /**
+     * Reads every secret key entry of the keystore, the alias of an entry is its key id.
+     */
+    public static JwtKeyRing load(Resource keystore, String type, char[] password, String signingAlias)
+            throws IOException, GeneralSecurityException {
+        KeyStore store = KeyStore.getInstance(type);
+        try (InputStream in = keystore.getInputStream()) {
+            store.load(in, password);
+        }
+
+        Map<String, SecretKey> keys = new HashMap<>();
+        for (String alias : Collections.list(store.aliases())) {
+            Key key = store.getKey(alias, password);
+            if (key instanceof SecretKey secretKey) {
+                keys.put(alias, secretKey);
+            }
+        }
+
+        logger.info("Loaded JWT keys {}, signing with {}", keys.keySet(), signingAlias);
+        return new JwtKeyRing(keys, signingAlias);
+    }
+
+    /**
+     * A single random key, tokens then only verify on this instance and until it restarts.
+     */
+    public static JwtKeyRing random() {
+        String id = "local-" + UUID.randomUUID();
+        return new JwtKeyRing(Map.of(id, Keys.secretKeyFor(SignatureAlgorithm.HS256)), id);
+    }
+
+    public String getSigningKeyId() {
+        return signingKeyId;
+    }
+
+    public SecretKey getSigningKey() {
+        return keys.get(signingKeyId);
+    }
+
+    /**
+     * @return the key with the id, null when it isn't in the ring
+     */
+    public SecretKey getVerificationKey(String keyId) {
+        return keys.get(keyId);
+    }
+
+    public Set<String> getKeyIds() {
+        return keys.keySet();
+    }
+}
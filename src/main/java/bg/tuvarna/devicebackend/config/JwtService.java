@@ -2,16 +2,27 @@ package bg.tuvarna.devicebackend.config;
 
 import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
 import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
+import bg.tuvarna.devicebackend.models.dtos.UserCredentials;
+import bg.tuvarna.devicebackend.models.dtos.UserPrincipal;
 import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.models.enums.UserRole;
+import bg.tuvarna.devicebackend.utils.ExpiringCache;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -20,55 +31,108 @@ import java.util.function.Function;
 @Service
 public class JwtService {
     private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
-    private final SecretKey key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    private static final String ROLE_CLAIM = "role";
+    private static final int CLAIMS_CACHE_STRIPES = 16;
+
+    private final JwtKeyRing keyRing;
+    private final JwtParser parser;
+    private final ExpiringCache<String, Claims> verifiedTokens;
+
+    public JwtService(JwtKeyRing keyRing, @Value("${jwt.claims-cache.max-size:10000}") int claimsCacheSize) {
+        this.keyRing = keyRing;
+        this.parser = Jwts.parserBuilder().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                return verificationKey(header.getKeyId());
+            }
+        }).build();
+        this.verifiedTokens = new ExpiringCache<>(claimsCacheSize, Duration.ZERO, CLAIMS_CACHE_STRIPES);
+    }
 
     public String extractId(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
+    /**
+     * The principal the token was issued for, read from the claims only, or null once the token expired.
+     * Every token that verifies against the key ring carries the role claim.
+     */
+    public UserPrincipal extractPrincipal(String token) {
+        final Claims claims = verify(token);
+        if (claims == null) {
+            return null;
+        }
+
+        return new UserPrincipal(Long.valueOf(claims.getSubject()), UserRole.valueOf(claims.get(ROLE_CLAIM, String.class)));
+    }
+
+    /**
+     * @return the resolved claim, null once the token expired
+     */
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        final Claims claims = verify(token);
+        return claims != null ? claimsResolver.apply(claims) : null;
+    }
+
+    /**
+     * Checks the signature and returns the claims, or null once the token expired.
+     * Verified tokens are remembered by their digest until they expire, later requests with the
+     * same token skip the signature check.
+     */
+    public Claims verify(String token) {
+        String digest = digest(token);
+        Claims claims = verifiedTokens.get(digest);
+        if (claims != null) {
+            return claims;
+        }
+
+        try {
+            claims = extractAllClaims(token);
+        } catch (ExpiredJwtException e) {
+            return null;
+        }
+
+        if (claims.getExpiration() != null) {
+            Duration timeToLive = Duration.between(Instant.now(), claims.getExpiration().toInstant());
+            if (!timeToLive.isNegative()) {
+                verifiedTokens.put(digest, claims, timeToLive);
+            }
+        }
+        return claims;
     }
 
     public String generateToken(User user) {
         return generateToken(new HashMap<>(), user);
     }
 
+    public String generateToken(UserCredentials credentials) {
+        return generateToken(new HashMap<>(), credentials.id(), credentials.role());
+    }
+
     public String generateToken(Map<String, Object> extraClaims, User user) {
+        return generateToken(extraClaims, user.getId(), user.getRole());
+    }
+
+    private String generateToken(Map<String, Object> extraClaims, Long id, UserRole role) {
         return Jwts
                 .builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keyRing.getSigningKeyId())
                 .setClaims(extraClaims)
-                .setSubject(user.getId().toString())
+                .claim(ROLE_CLAIM, role.name())
+                .setSubject(id.toString())
                 .setIssuedAt(new Date())
                 .setExpiration(Date.from(Instant.now().plus(2L, ChronoUnit.HOURS)))//1 hour
-                .signWith(key)
+                .signWith(keyRing.getSigningKey())
                 .compact();
     }
 
-    public boolean isTokenValid(String token, User user) {
-        final long id = Long.parseLong(extractId(token));
-        return (id == user.getId()) && !isTokenExpired(token);
-    }
-
     public boolean isTokenExpired(String token) {
-        return extractExpiration(token) == null;
-    }
-
-    private Date extractExpiration(String token) {
-        try {
-            return extractClaim(token, Claims::getExpiration);
-        } catch (ExpiredJwtException e) {
-            return null;
-        }
+        return verify(token) == null;
     }
 
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts
-                    .parserBuilder()
-                    .setSigningKey(key)
-                    .build()
+            return parser
                     .parseClaimsJws(token)
                     .getBody();
         } catch (MalformedJwtException e) {
@@ -76,4 +140,21 @@ public class JwtService {
             throw new CustomException("Not valid JWT token", ErrorCode.Failed);
         }
     }
+
+    private SecretKey verificationKey(String keyId) {
+        SecretKey key = keyRing.getVerificationKey(keyId);
+        if (key == null) {
+            throw new SignatureException("Unknown JWT key id " + keyId);
+        }
+        return key;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
\ No newline at end of file
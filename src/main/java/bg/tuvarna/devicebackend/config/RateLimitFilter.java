@@ -0,0 +1,89 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
+import bg.tuvarna.devicebackend.controllers.exceptions.ErrorResponse;
+import bg.tuvarna.devicebackend.ratelimit.BucketLimit;
+import bg.tuvarna.devicebackend.ratelimit.RateLimitDecision;
+import bg.tuvarna.devicebackend.ratelimit.RateLimitStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Limits the public routes per client address, before any token or password work is done.
+ * The address is taken from X-Forwarded-For only when the request came through one of the trusted
+ * proxies in {@code server.tomcat.remoteip.internal-proxies}, so clients can't pick their own bucket.
+ * Rejected requests get 429 with a Retry-After header.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final RateLimitStore store;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Map<RateLimitGroup, BucketLimit> limits = new EnumMap<>(RateLimitGroup.class);
+
+    public RateLimitFilter(
+            RateLimitStore store,
+            ObjectMapper objectMapper,
+            Environment environment,
+            @Value("${rate-limit.enabled:true}") boolean enabled
+    ) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+
+        for (RateLimitGroup group : RateLimitGroup.values()) {
+            limits.put(group, group.limit(environment));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        RateLimitGroup group = enabled ? findGroup(request) : null;
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RateLimitDecision decision = store.tryConsume(group.getName(), request.getRemoteAddr(), limits.get(group));
+        if (decision.allowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()));
+        response.setContentType("application/json");
+        objectMapper.writeValue(
+                response.getWriter(),
+                new ErrorResponse(new CustomException("Too many requests", ErrorCode.TooManyRequests))
+        );
+    }
+
+    private static RateLimitGroup findGroup(HttpServletRequest request) {
+        for (RateLimitGroup group : RateLimitGroup.values()) {
+            if (group.matches(request.getMethod(), request.getRequestURI())) {
+                return group;
+            }
+        }
+        return null;
+    }
+}
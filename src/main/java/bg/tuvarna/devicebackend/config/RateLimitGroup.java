@@ -0,0 +1,48 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.ratelimit.BucketLimit;
+import org.springframework.core.env.Environment;
+import org.springframework.util.AntPathMatcher;
+
+/**
+ * The public routes limited by {@link RateLimitFilter}. The defaults can be overridden with
+ * {@code rate-limit.<group>.capacity} and {@code rate-limit.<group>.per-minute}.
+ */
+public enum RateLimitGroup {
+    LOGIN("login", "POST", "/api/v1/users/login", 10, 10),
+    REGISTRATION("registration", "POST", "/api/v1/users/registration", 5, 5),
+    DEVICE_LOOKUP("device-lookup", "GET", "/api/v1/devices/exists/**", 60, 60),
+    ANONYMOUS_DEVICE("anonymous-device", "POST", "/api/v1/devices/anonymousDevice", 10, 10),
+    PASSPORT_LOOKUP("passport-lookup", "GET", "/api/v1/passports/getBySerialId/*", 60, 60);
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final String name;
+    private final String method;
+    private final String pattern;
+    private final long defaultCapacity;
+    private final long defaultPerMinute;
+
+    RateLimitGroup(String name, String method, String pattern, long defaultCapacity, long defaultPerMinute) {
+        this.name = name;
+        this.method = method;
+        this.pattern = pattern;
+        this.defaultCapacity = defaultCapacity;
+        this.defaultPerMinute = defaultPerMinute;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean matches(String requestMethod, String path) {
+        return method.equals(requestMethod) && PATH_MATCHER.match(pattern, path);
+    }
+
+    public BucketLimit limit(Environment environment) {
+        return new BucketLimit(
+                environment.getProperty("rate-limit." + name + ".capacity", Long.class, defaultCapacity),
+                environment.getProperty("rate-limit." + name + ".per-minute", Long.class, defaultPerMinute)
+        );
+    }
+}
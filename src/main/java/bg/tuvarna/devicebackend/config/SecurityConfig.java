@@ -6,6 +6,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -22,7 +23,8 @@ import java.util.List;
 @RequiredArgsConstructor
 public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthFilter;
-    private final ApplicationConfig applicationConfig;
+    private final RateLimitFilter rateLimitFilter;
+    private final AuthenticationManager authenticationManager;
     private final AuthenticationFilter authenticationFilter;
 
     @Bean
@@ -33,12 +35,14 @@ public class SecurityConfig {
             auth.requestMatchers("/api/v1/passports/getBySerialId/*", "/api/v1/users/login", "/api/v1/users/registration", "/swagger-ui", "/swagger", "/swagger-ui/**", "/swagger/**", "/login/**").permitAll();
             auth.requestMatchers("/api/v1/devices/exists/", "/api/v1/devices/addAnonymousDevice", "/api/v1/devices/exists/*").permitAll();
             auth.requestMatchers("/api/v1/users/update", "/api/v1/devices/addDevice", "api/v1/users/getUser", "/api/v1/users/changePassword").hasAnyAuthority(UserRole.USER.toString(), UserRole.ADMIN.toString());
-            auth.requestMatchers("/api/v1/passports/**", "/api/v1/users", "/api/v1/users/*", "/api/v1/renovations", "/api/v1/devices", "/api/v1/devices/**").hasAuthority(UserRole.ADMIN.toString());
+            auth.requestMatchers("/api/v1/passports/**", "/api/v1/users", "/api/v1/users/*", "/api/v1/renovations", "/api/v1/renovations/**", "/api/v1/devices", "/api/v1/devices/**").hasAuthority(UserRole.ADMIN.toString());
+            auth.requestMatchers("/api/v1/analytics/**", "/actuator/**").hasAuthority(UserRole.ADMIN.toString());
             auth.anyRequest().authenticated();
         });
-        http.authenticationManager(applicationConfig.authenticationManager());
+        http.authenticationManager(authenticationManager);
         http.addFilterAt(authenticationFilter, UsernamePasswordAuthenticationFilter.class);
         http.addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+        http.addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class);
         http.exceptionHandling(e -> e
                 .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
         );
@@ -0,0 +1,61 @@
+package bg.tuvarna.devicebackend.controllers;
+
+import bg.tuvarna.devicebackend.models.dtos.FirstRepairVO;
+import bg.tuvarna.devicebackend.models.dtos.MonthlyRenovationsVO;
+import bg.tuvarna.devicebackend.services.AnalyticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.YearMonth;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/analytics")
+@AllArgsConstructor
+public class AnalyticsController {
+    private final AnalyticsService analyticsService;
+
+    @Operation(
+            summary = "Returns renovations per passport model and month.",
+            description = "Months are given as yyyy-MM, both inclusive, and default to the last 12 months. " +
+                    "Leave out the model to get every model."
+    )
+    @GetMapping("/renovations/monthly")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<List<MonthlyRenovationsVO>> getMonthlyRenovations(
+            @RequestParam(required = false) String model,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to
+    ) {
+        return ResponseEntity.ok(analyticsService.getMonthlyRenovations(model, from, to));
+    }
+
+    @Operation(
+            summary = "Returns the average days from purchase to first repair per passport model.",
+            description = "Only devices with a purchase date and at least one renovation are counted."
+    )
+    @GetMapping("/renovations/first-repair")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<List<FirstRepairVO>> getFirstRepairs() {
+        return ResponseEntity.ok(analyticsService.getFirstRepairs());
+    }
+
+    @Operation(
+            summary = "Rebuilds the renovation analytics.",
+            description = "Recomputes every rollup from the renovations, the same as the nightly job."
+    )
+    @PostMapping("/rebuild")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<Void> rebuild() {
+        analyticsService.rebuild();
+        return ResponseEntity.ok().build();
+    }
+}
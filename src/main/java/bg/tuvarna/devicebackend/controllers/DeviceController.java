@@ -2,11 +2,22 @@ package bg.tuvarna.devicebackend.controllers;
 
 import bg.tuvarna.devicebackend.controllers.exceptions.ErrorResponse;
 import bg.tuvarna.devicebackend.models.dtos.DeviceCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.DeviceImportReport;
+import bg.tuvarna.devicebackend.models.dtos.DeviceListingVO;
 import bg.tuvarna.devicebackend.models.dtos.DeviceUpdateVO;
 import bg.tuvarna.devicebackend.models.dtos.DeviceVO;
 import bg.tuvarna.devicebackend.models.entities.Device;
-import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.models.dtos.RenovationHistoryVO;
+import bg.tuvarna.devicebackend.models.dtos.UserPrincipal;
+import bg.tuvarna.devicebackend.models.enums.CountMode;
+import bg.tuvarna.devicebackend.models.enums.DeviceSortOrder;
+import bg.tuvarna.devicebackend.models.enums.ExportFormat;
+import bg.tuvarna.devicebackend.services.DeviceExportService;
+import bg.tuvarna.devicebackend.services.DeviceImportService;
 import bg.tuvarna.devicebackend.services.DeviceService;
+import bg.tuvarna.devicebackend.services.RenovationService;
+import bg.tuvarna.devicebackend.services.UserService;
+import bg.tuvarna.devicebackend.utils.CursorPage;
 import bg.tuvarna.devicebackend.utils.CustomPage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,18 +25,31 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/api/v1/devices")
 @AllArgsConstructor
 public class DeviceController {
     private final DeviceService deviceService;
+    private final DeviceExportService deviceExportService;
+    private final DeviceImportService deviceImportService;
+    private final UserService userService;
+    private final RenovationService renovationService;
 
     @Operation(
             description = "Return device by id for logged in user.",
@@ -37,6 +61,54 @@ public class DeviceController {
         return new DeviceVO(deviceService.findDevice(id));
     }
 
+    @Operation(
+            summary = "Returns the renovation history of a device.",
+            description = "Keyset paged renovations of the device, newest first, optionally only the ones " +
+                    "between from and to (inclusive). Send no cursor for the first page and the returned " +
+                    "nextCursor for the following ones."
+    )
+    @GetMapping("/{serialNumber}/renovations")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<CursorPage<RenovationHistoryVO>> getRenovationHistory(
+            @PathVariable String serialNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(renovationService.getHistory(serialNumber, cursor, from, to, size));
+    }
+
+    @Operation(
+            summary = "Exports all devices.",
+            description = "Streams every device with its passport, owner and warranty dates as NDJSON or CSV."
+    )
+    @GetMapping("/export")
+    @SecurityRequirement(name = "bearerAuth")
+    public WebAsyncTask<Void> exportDevices(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            HttpServletResponse response
+    ) {
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"devices." + format.getExtension() + "\"");
+
+        return new WebAsyncTask<>(deviceExportService.getTimeout().toMillis(), () -> {
+            deviceExportService.export(format, response.getOutputStream());
+            return null;
+        });
+    }
+
+    @Operation(
+            summary = "Imports devices from CSV.",
+            description = "Adds sold devices from a CSV file with serial number and purchase date columns " +
+                    "and reports for every row whether it was accepted."
+    )
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<DeviceImportReport> importDevices(@RequestParam("file") MultipartFile file) throws IOException {
+        return ResponseEntity.ok(deviceImportService.importDevices(file.getInputStream()));
+    }
+
     @Operation(
             description = "Checks if device exists, which means the user is registered.",
             summary = "Checks if device exists"
@@ -77,9 +149,12 @@ public class DeviceController {
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<DeviceVO> addDevice(
             @RequestBody @Valid DeviceCreateVO device,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal principal
     ) {
-        Device saved = deviceService.registerNewDevice(device, user);
+        Device saved = deviceService.registerNewDevice(
+                device,
+                principal != null ? userService.getUserReference(principal.id()) : null
+        );
 
         return ResponseEntity.created(
                         ServletUriComponentsBuilder
@@ -97,12 +172,28 @@ public class DeviceController {
     )
     @GetMapping
     @SecurityRequirement(name = "bearerAuth")
-    public ResponseEntity<CustomPage<Device>> getDevices(
+    public ResponseEntity<CustomPage<DeviceListingVO>> getDevices(
             @RequestParam(required = false) String searchBy,
             @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "EXACT") CountMode count
+    ) {
+        return ResponseEntity.ok(deviceService.getDevices(searchBy, page, size, count));
+    }
+
+    @Operation(
+            summary = "Returns devices by cursor.",
+            description = "Keyset paged listing of all devices ordered by serial number or purchase date. " +
+                    "Send an empty cursor for the first page and the returned nextCursor for the following ones."
+    )
+    @GetMapping(params = "cursor")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<CursorPage<DeviceListingVO>> getDevicesByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "SERIAL_NUMBER") DeviceSortOrder sort,
             @RequestParam(defaultValue = "10") int size
     ) {
-        return ResponseEntity.ok(deviceService.getDevices(searchBy, page, size));
+        return ResponseEntity.ok(deviceService.getDevicesByCursor(cursor, sort, size));
     }
 
     @Operation(
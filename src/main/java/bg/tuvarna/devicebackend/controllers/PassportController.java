@@ -2,6 +2,7 @@ package bg.tuvarna.devicebackend.controllers;
 
 import bg.tuvarna.devicebackend.models.dtos.*;
 import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.models.enums.CountMode;
 import bg.tuvarna.devicebackend.services.PassportService;
 import bg.tuvarna.devicebackend.utils.CustomPage;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,6 +17,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("api/v1/passports")
 @AllArgsConstructor
@@ -84,9 +87,10 @@ public class PassportController {
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<CustomPage<Passport>> getPassports(
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "EXACT") CountMode count
     ) {
-        return ResponseEntity.ok(passportService.getPassports(page, size));
+        return ResponseEntity.ok(passportService.getPassports(page, size, count));
     }
 
     @Operation(
@@ -119,4 +123,23 @@ public class PassportController {
     public ResponseEntity<PassportForSerialNumberVO> getPassportForSerialId(@PathVariable String serialId) {
         return ResponseEntity.ok(new PassportForSerialNumberVO(passportService.findPassportBySerialId(serialId)));
     }
+
+    @Operation(
+            description = "Resolve passports for a batch of serial ids, serials without a passport are marked as not found",
+            summary = "Get passports by serialIds"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "One result per requested serial id, in request order"
+            ),
+            @ApiResponse(responseCode = "400", description = "Bad request - empty or too large batch")
+    })
+    @PostMapping("/getBySerialIds")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<List<PassportSerialLookupVO>> getPassportsForSerialIds(
+            @RequestBody @Valid PassportSerialBatchVO passportSerialBatchVO
+    ) {
+        return ResponseEntity.ok(passportService.findPassportsBySerialIds(passportSerialBatchVO.serialIds()));
+    }
 }
\ No newline at end of file
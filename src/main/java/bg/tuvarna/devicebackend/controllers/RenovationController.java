@@ -1,5 +1,6 @@
 package bg.tuvarna.devicebackend.controllers;
 
+import bg.tuvarna.devicebackend.models.dtos.RenovationBulkReport;
 import bg.tuvarna.devicebackend.models.dtos.RenovationCreateVO;
 import bg.tuvarna.devicebackend.models.dtos.RenovationVO;
 import bg.tuvarna.devicebackend.models.entities.Renovation;
@@ -19,6 +20,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/renovations")
 @AllArgsConstructor
@@ -55,4 +58,26 @@ public class RenovationController {
                 )
                 .body(new RenovationVO(saved));
     }
+
+    @Operation(
+            description = "Add renovations for many devices at once, each item is accepted or rejected on its own",
+            summary = "Add renovations in bulk"
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Renovations processed.",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = RenovationBulkReport.class)
+                            )
+                    )
+            }
+    )
+    @PostMapping("/bulk")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<RenovationBulkReport> saveRenovations(@RequestBody List<RenovationCreateVO> items) {
+        return ResponseEntity.ok(renovationService.saveAll(items));
+    }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package bg.tuvarna.devicebackend.controllers;
 import bg.tuvarna.devicebackend.controllers.exceptions.ErrorResponse;
 import bg.tuvarna.devicebackend.models.dtos.*;
 import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.models.enums.CountMode;
 import bg.tuvarna.devicebackend.services.UserService;
 import bg.tuvarna.devicebackend.utils.CustomPage;
 import io.swagger.v3.oas.annotations.Operation;
@@ -66,7 +67,7 @@ public class UserController {
     @PostMapping("/login")
     public ResponseEntity<AuthResponseDTO> userLogin(
             @RequestBody @Valid UserLoginDTO dto,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal principal
     ) {
         return ResponseEntity.ok().build();
     }
@@ -80,9 +81,10 @@ public class UserController {
     public ResponseEntity<CustomPage<UserListing>> getUsers(
             @RequestParam(required = false) String searchBy,
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "EXACT") CountMode count
     ) {
-        return ResponseEntity.ok(userService.getUsers(searchBy, page, size));
+        return ResponseEntity.ok(userService.getUsers(searchBy, page, size, count));
     }
 
     @Operation(
@@ -133,7 +135,7 @@ public class UserController {
     )
     @GetMapping("/getUser")
     @SecurityRequirement(name = "bearerAuth")
-    public ResponseEntity<UserVO> getUser(@AuthenticationPrincipal User user) {
-        return ResponseEntity.ok(new UserVO(user));
+    public ResponseEntity<UserVO> getUser(@AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(userService.getProfile(principal.id()));
     }
 }
\ No newline at end of file
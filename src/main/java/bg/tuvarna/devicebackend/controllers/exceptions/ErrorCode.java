@@ -12,7 +12,9 @@ public enum ErrorCode {
     WrongCredentials(2),
     NotRegistered(3),
     Failed(4),
-    Validation(5);
+    Validation(5),
+    Unavailable(6),
+    TooManyRequests(7);
 
     private final int code;
 
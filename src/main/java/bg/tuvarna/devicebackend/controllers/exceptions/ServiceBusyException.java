@@ -0,0 +1,16 @@
+package bg.tuvarna.devicebackend.controllers.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a bounded resource can't take more work right now, answered with 503 and a Retry-After header.
+ */
+@Getter
+public class ServiceBusyException extends CustomException {
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message, ErrorCode.Unavailable);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,15 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+import java.time.LocalDate;
+
+public record DeviceExportRow(
+        String serialNumber,
+        LocalDate purchaseDate,
+        LocalDate warrantyExpirationDate,
+        String passportName,
+        String passportModel,
+        String ownerName,
+        String ownerEmail,
+        String ownerPhone
+) {
+}
@@ -0,0 +1,17 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+import java.util.List;
+
+public record DeviceImportReport(
+        int accepted,
+        int rejected,
+        List<DeviceImportRowResult> rows
+) {
+    public DeviceImportReport(List<DeviceImportRowResult> rows) {
+        this(
+                (int) rows.stream().filter(DeviceImportRowResult::accepted).count(),
+                (int) rows.stream().filter(row -> !row.accepted()).count(),
+                rows
+        );
+    }
+}
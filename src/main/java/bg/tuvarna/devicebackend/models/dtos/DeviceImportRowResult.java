@@ -0,0 +1,16 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+public record DeviceImportRowResult(
+        long line,
+        String serialNumber,
+        boolean accepted,
+        String error
+) {
+    public static DeviceImportRowResult accepted(long line, String serialNumber) {
+        return new DeviceImportRowResult(line, serialNumber, true, null);
+    }
+
+    public static DeviceImportRowResult rejected(long line, String serialNumber, String error) {
+        return new DeviceImportRowResult(line, serialNumber, false, error);
+    }
+}
@@ -0,0 +1,17 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+import java.time.LocalDate;
+
+public record DeviceListingVO(
+        String serialNumber,
+        LocalDate purchaseDate,
+        LocalDate warrantyExpirationDate,
+        String comment,
+        Long passportId,
+        String passportName,
+        String passportModel,
+        Long ownerId,
+        String ownerName,
+        Long renovationCount
+) {
+}
@@ -3,7 +3,6 @@ package bg.tuvarna.devicebackend.models.dtos;
 import bg.tuvarna.devicebackend.models.entities.Device;
 
 import java.time.LocalDate;
-import java.util.List;
 
 public record DeviceVO(
         String serialNumber,
@@ -12,7 +11,8 @@ public record DeviceVO(
         String comment,
         UserVO user,
         PassportVO passport,
-        List<RenovationVO> renovations
+        long renovationCount,
+        LocalDate lastRenovationDate
 ) {
     public DeviceVO(Device device) {
         this(
@@ -22,7 +22,8 @@ public record DeviceVO(
                 device.getComment(),
                 device.getUser() != null ? new UserVO(device.getUser(), false) : null,
                 new PassportVO(device.getPassport()),
-                device.getRenovations().stream().map(RenovationVO::new).toList()
+                device.getRenovationCount() != null ? device.getRenovationCount() : 0,
+                device.getLastRenovationDate()
         );
     }
 
@@ -34,7 +35,8 @@ public record DeviceVO(
                 device.getComment(),
                 loadUser && device.getUser() != null ? new UserVO(device.getUser(), false) : null,
                 new PassportVO(device.getPassport()),
-                device.getRenovations().stream().map(RenovationVO::new).toList()
+                device.getRenovationCount() != null ? device.getRenovationCount() : 0,
+                device.getLastRenovationDate()
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+import bg.tuvarna.devicebackend.models.entities.FirstRepairStat;
+
+public record FirstRepairVO(
+        String passportModel,
+        long devicesRepaired,
+        double averageDaysToFirstRepair
+) {
+    public FirstRepairVO(FirstRepairStat stat) {
+        this(
+                stat.getPassportModel(),
+                stat.getDevicesRepaired(),
+                stat.getDevicesRepaired() == 0 ? 0 : (double) stat.getTotalDays() / stat.getDevicesRepaired()
+        );
+    }
+}
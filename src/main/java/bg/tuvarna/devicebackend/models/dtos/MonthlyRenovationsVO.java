@@ -0,0 +1,19 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+import bg.tuvarna.devicebackend.models.entities.RenovationMonthlyStat;
+
+import java.time.YearMonth;
+
+public record MonthlyRenovationsVO(
+        String passportModel,
+        YearMonth month,
+        long renovations
+) {
+    public MonthlyRenovationsVO(RenovationMonthlyStat stat) {
+        this(
+                stat.getId().getPassportModel(),
+                YearMonth.of(stat.getId().getYearMonth() / 100, stat.getId().getYearMonth() % 100),
+                stat.getRenovationCount()
+        );
+    }
+}
@@ -0,0 +1,14 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record PassportSerialBatchVO(
+        @NotEmpty(message = "Serial ids are required")
+        @Size(max = 1000, message = "At most 1000 serial ids can be resolved at once")
+        List<@NotBlank(message = "Serial id must not be blank") String> serialIds
+) {
+}
@@ -0,0 +1,13 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+import bg.tuvarna.devicebackend.models.entities.Passport;
+
+public record PassportSerialLookupVO(
+        String serialId,
+        boolean found,
+        PassportForSerialNumberVO passport
+) {
+    public PassportSerialLookupVO(String serialId, Passport passport) {
+        this(serialId, passport != null, passport != null ? new PassportForSerialNumberVO(passport) : null);
+    }
+}
@@ -0,0 +1,16 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+import java.time.LocalDate;
+
+/**
+ * What the analytics rollups need to know about a device before new renovations are added to it.
+ *
+ * @param firstRenovationDate date of its earliest renovation so far, null when it was never repaired
+ */
+public record RenovatedDeviceRow(
+        String serialNumber,
+        String passportModel,
+        LocalDate purchaseDate,
+        LocalDate firstRenovationDate
+) {
+}
@@ -0,0 +1,17 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+public record RenovationBulkItemResult(
+        int index,
+        String deviceSerialNumber,
+        Long id,
+        boolean accepted,
+        String error
+) {
+    public static RenovationBulkItemResult accepted(int index, String deviceSerialNumber, Long id) {
+        return new RenovationBulkItemResult(index, deviceSerialNumber, id, true, null);
+    }
+
+    public static RenovationBulkItemResult rejected(int index, String deviceSerialNumber, String error) {
+        return new RenovationBulkItemResult(index, deviceSerialNumber, null, false, error);
+    }
+}
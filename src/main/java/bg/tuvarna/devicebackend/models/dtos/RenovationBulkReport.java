@@ -0,0 +1,17 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+import java.util.List;
+
+public record RenovationBulkReport(
+        int accepted,
+        int rejected,
+        List<RenovationBulkItemResult> items
+) {
+    public RenovationBulkReport(List<RenovationBulkItemResult> items) {
+        this(
+                (int) items.stream().filter(RenovationBulkItemResult::accepted).count(),
+                (int) items.stream().filter(item -> !item.accepted()).count(),
+                items
+        );
+    }
+}
@@ -0,0 +1,8 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+public record UserContact(
+        Long id,
+        String email,
+        String phone
+) {
+}
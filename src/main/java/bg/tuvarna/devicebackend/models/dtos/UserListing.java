@@ -14,6 +14,10 @@ public record UserListing(
         List<Device> devices
 ) {
     public UserListing (User user){
-        this(user.getId(), user.getFullName(), user.getAddress(), user.getPhone(), user.getEmail(), user.getDevices());
+        this(user, user.getDevices());
+    }
+
+    public UserListing(User user, List<Device> devices) {
+        this(user.getId(), user.getFullName(), user.getAddress(), user.getPhone(), user.getEmail(), devices);
     }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+import bg.tuvarna.devicebackend.models.enums.UserRole;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+/**
+ * The authenticated user as read from the token claims, enough for authorization and for
+ * endpoints that only need the id.
+ */
+public record UserPrincipal(
+        Long id,
+        UserRole role
+) {
+    public List<GrantedAuthority> authorities() {
+        return List.of(new SimpleGrantedAuthority(role.name()));
+    }
+}
@@ -4,16 +4,34 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Formula;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "devices", schema = "public")
+@Table(
+        name = "devices",
+        schema = "public",
+        indexes = @Index(name = "idx_devices_purchase_date_serial", columnList = "purchaseDate, serialNumber")
+)
+@NamedEntityGraph(
+        name = Device.DETAILS_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode("passport"),
+                @NamedAttributeNode("user")
+        }
+)
 @Getter
 @Setter
 public class Device {
+    /**
+     * Everything a single device view serializes.
+     */
+    public static final String DETAILS_GRAPH = "Device.details";
+
     @Id
     @Column(name = "serialNumber", nullable = false)
     private String serialNumber;
@@ -30,7 +48,19 @@ public class Device {
     @JoinColumn(name = "passport_id")
     private Passport passport;
 
-    @OneToMany(mappedBy = "device", orphanRemoval = true, cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "device", orphanRemoval = true, cascade = CascadeType.ALL)
+    @BatchSize(size = 50)
+    @JsonIgnore
     private List<Renovation> renovations = new ArrayList<>();
 
+    /**
+     * Summary of the renovation history, read with the device from the renovations index.
+     * The history itself is paged through {@code RenovationRepository}.
+     */
+    @Formula("(select count(*) from renovations r where r.device_serial_number = serial_number)")
+    private Long renovationCount;
+
+    @Formula("(select max(r.renovation_date) from renovations r where r.device_serial_number = serial_number)")
+    private LocalDate lastRenovationDate;
+
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package bg.tuvarna.devicebackend.models.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per passport model, the number of devices repaired at least once and the days from purchase to
+ * the first repair summed over them. Maintained like {@link RenovationMonthlyStat}.
+ */
+@Entity
+@Table(name = "renovation_first_repair_stats", schema = "public")
+@Getter
+@NoArgsConstructor
+public class FirstRepairStat {
+    @Id
+    private String passportModel;
+    private long devicesRepaired;
+    private long totalDays;
+}
@@ -4,7 +4,11 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "passports", schema = "public")
+@Table(
+        name = "passports",
+        schema = "public",
+        indexes = @Index(name = "idx_passports_serial_range", columnList = "serialPrefix, fromSerialNumber, toSerialNumber")
+)
 @Getter
 @Setter
 @Builder
@@ -12,7 +16,8 @@ import lombok.*;
 @NoArgsConstructor
 public class Passport {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "passports_seq")
+    @SequenceGenerator(name = "passports_seq", sequenceName = "passports_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
     private String name;
@@ -8,12 +8,17 @@ import lombok.Setter;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "renovations", schema = "public")
+@Table(
+        name = "renovations",
+        schema = "public",
+        indexes = @Index(name = "idx_renovations_device_date", columnList = "device_serial_number, renovationDate")
+)
 @Getter
 @Setter
 public class Renovation {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "renovations_seq")
+    @SequenceGenerator(name = "renovations_seq", sequenceName = "renovations_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
 
@@ -0,0 +1,21 @@
+package bg.tuvarna.devicebackend.models.entities;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Renovations per passport model and month. Kept current by {@code AnalyticsService} as renovations
+ * are saved and rebuilt from the renovations table by its scheduled job.
+ */
+@Entity
+@Table(name = "renovation_monthly_stats", schema = "public")
+@Getter
+@NoArgsConstructor
+public class RenovationMonthlyStat {
+    @EmbeddedId
+    private RenovationMonthlyStatId id;
+    private long renovationCount;
+}
@@ -0,0 +1,22 @@
+package bg.tuvarna.devicebackend.models.entities;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Embeddable
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class RenovationMonthlyStatId implements Serializable {
+    private String passportModel;
+    /**
+     * Year and month as {@code yyyyMM}, e.g. 202403.
+     */
+    private int yearMonth;
+}
@@ -4,6 +4,7 @@ import bg.tuvarna.devicebackend.models.dtos.UserCreateVO;
 import bg.tuvarna.devicebackend.models.enums.UserRole;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,15 +13,33 @@ import java.util.Collection;
 import java.util.List;
 
 @Entity
-@Table(name = "users", schema = "public")
+@Table(
+        name = "users",
+        schema = "public",
+        indexes = {
+                @Index(name = "users_email_key", columnList = "email", unique = true),
+                @Index(name = "users_phone_key", columnList = "phone", unique = true)
+        }
+)
+@NamedEntityGraph(
+        name = User.PROFILE_GRAPH,
+        attributeNodes = @NamedAttributeNode(value = "devices", subgraph = "devices"),
+        subgraphs = @NamedSubgraph(name = "devices", attributeNodes = @NamedAttributeNode("passport"))
+)
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 public class User implements UserDetails {
+    /**
+     * The user with devices and their passports, as shown on the profile.
+     */
+    public static final String PROFILE_GRAPH = "User.profile";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
     private String fullName;
@@ -31,7 +50,8 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     private UserRole role;
 
-    @OneToMany(mappedBy = "user", orphanRemoval = true, cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "user", orphanRemoval = true, cascade = CascadeType.ALL)
+    @BatchSize(size = 50)
     private List<Device> devices;
 
     public User(UserCreateVO vo) {
@@ -0,0 +1,9 @@
+package bg.tuvarna.devicebackend.models.enums;
+
+/**
+ * How paged listings fill in their totals: EXACT runs a count query, ESTIMATED reads the row
+ * estimate kept by the PostgreSQL planner and NONE only reports whether a next page exists.
+ */
+public enum CountMode {
+    EXACT, ESTIMATED, NONE
+}
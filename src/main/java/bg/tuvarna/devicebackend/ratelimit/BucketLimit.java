@@ -0,0 +1,13 @@
+package bg.tuvarna.devicebackend.ratelimit;
+
+/**
+ * A token bucket holding up to {@code capacity} requests, refilled evenly with {@code perMinute} requests a minute.
+ */
+public record BucketLimit(
+        long capacity,
+        long perMinute
+) {
+    public double tokensPerNano() {
+        return perMinute / 60_000_000_000d;
+    }
+}
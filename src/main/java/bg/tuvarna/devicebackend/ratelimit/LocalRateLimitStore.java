@@ -0,0 +1,123 @@
+package bg.tuvarna.devicebackend.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * In-JVM buckets, each updated lock free, so every instance limits the clients it sees on its own.
+ * Buckets unused for the idle timeout are swept, a bucket idle that long would be full again anyway.
+ * When the store still holds the maximum number of buckets, the least recently used sixteenth of them
+ * is evicted, so a new client always gets a bucket of its own and evicting is rare.
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.store", havingValue = "local", matchIfMissing = true)
+public class LocalRateLimitStore implements RateLimitStore {
+    private static final int EVICTED_SHARE = 16;
+
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final int maxBuckets;
+    private final long idleNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong nextSweep;
+
+    public LocalRateLimitStore(
+            @Value("${rate-limit.max-buckets:100000}") int maxBuckets,
+            @Value("${rate-limit.idle-timeout:10m}") Duration idleTimeout
+    ) {
+        this(maxBuckets, idleTimeout, System::nanoTime);
+    }
+
+    public LocalRateLimitStore(int maxBuckets, Duration idleTimeout, LongSupplier nanoClock) {
+        this.maxBuckets = maxBuckets;
+        this.idleNanos = idleTimeout.toNanos();
+        this.nanoClock = nanoClock;
+        this.nextSweep = new AtomicLong(nanoClock.getAsLong() + idleNanos);
+    }
+
+    @Override
+    public RateLimitDecision tryConsume(String group, String client, BucketLimit limit) {
+        long now = nanoClock.getAsLong();
+        sweepIfDue(now);
+
+        String key = group + ":" + client;
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets) {
+                sweep(now);
+            }
+            if (buckets.size() >= maxBuckets) {
+                evictLeastRecentlyUsed();
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(limit.capacity(), now));
+        }
+
+        return bucket.tryConsume(limit, now);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now - due >= 0 && nextSweep.compareAndSet(due, now + idleNanos)) {
+            sweep(now);
+        }
+    }
+
+    private void sweep(long now) {
+        buckets.values().removeIf(bucket -> now - bucket.updatedAt() >= idleNanos);
+    }
+
+    private void evictLeastRecentlyUsed() {
+        long[] usedAt = buckets.values().stream().mapToLong(Bucket::updatedAt).toArray();
+        if (usedAt.length == 0) {
+            return;
+        }
+        Arrays.sort(usedAt);
+        long cutoff = usedAt[Math.max(1, usedAt.length / EVICTED_SHARE) - 1];
+        buckets.values().removeIf(bucket -> bucket.updatedAt() <= cutoff);
+    }
+
+    private static final class Bucket {
+        private final AtomicReference<State> state;
+
+        private Bucket(long capacity, long now) {
+            this.state = new AtomicReference<>(new State(capacity, now));
+        }
+
+        private long updatedAt() {
+            return state.get().updatedAt();
+        }
+
+        private RateLimitDecision tryConsume(BucketLimit limit, long now) {
+            while (true) {
+                State current = state.get();
+                double tokens = Math.min(
+                        limit.capacity(),
+                        current.tokens() + Math.max(0, now - current.updatedAt()) * limit.tokensPerNano()
+                );
+
+                if (tokens < 1) {
+                    if (state.compareAndSet(current, new State(tokens, Math.max(now, current.updatedAt())))) {
+                        double waitNanos = (1 - tokens) / limit.tokensPerNano();
+                        return RateLimitDecision.rejected((long) Math.ceil(waitNanos / 1_000_000_000d));
+                    }
+                } else if (state.compareAndSet(current, new State(tokens - 1, Math.max(now, current.updatedAt())))) {
+                    return RateLimitDecision.ALLOWED;
+                }
+            }
+        }
+    }
+
+    private record State(double tokens, long updatedAt) {
+    }
+}
@@ -0,0 +1,11 @@
+package bg.tuvarna.devicebackend.ratelimit;
+
+/**
+ * Holds the token buckets of the rate limiter, one per route group and client.
+ */
+public interface RateLimitStore {
+    /**
+     * Takes one token from the bucket of the client in the group.
+     */
+    RateLimitDecision tryConsume(String group, String client, BucketLimit limit);
+}
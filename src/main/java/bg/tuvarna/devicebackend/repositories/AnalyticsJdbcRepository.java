@@ -0,0 +1,164 @@
+package bg.tuvarna.devicebackend.repositories;
+
+import bg.tuvarna.devicebackend.config.DatabasePlatform;
+import bg.tuvarna.devicebackend.models.dtos.RenovatedDeviceRow;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plain JDBC access to the renovation rollup tables. Counters are added to in place so concurrent
+ * renovations never overwrite each other, and the rebuild recomputes both tables from the renovations.
+ * Devices without a passport, or whose passport has no model, are counted under the empty model.
+ */
+@Repository
+public class AnalyticsJdbcRepository {
+    private static final String DEVICES_QUERY = "select d.serial_number, coalesce(p.model, ''), d.purchase_date, " +
+            "(select min(r.renovation_date) from renovations r where r.device_serial_number = d.serial_number) " +
+            "from devices d " +
+            "left join passports p on p.id = d.passport_id " +
+            "where d.serial_number in (%s)";
+
+    private static final String LOCK_DEVICES_QUERY = "select d.serial_number from devices d " +
+            "where d.serial_number in (%s) order by d.serial_number for update";
+
+    private static final String INSERT_MONTHLY = "insert into renovation_monthly_stats " +
+            "(passport_model, year_month, renovation_count) values (?, ?, ?)";
+    private static final String UPDATE_MONTHLY = "update renovation_monthly_stats " +
+            "set renovation_count = renovation_count + ? where passport_model = ? and year_month = ?";
+
+    private static final String INSERT_FIRST_REPAIR = "insert into renovation_first_repair_stats " +
+            "(passport_model, devices_repaired, total_days) values (?, ?, ?)";
+    private static final String UPDATE_FIRST_REPAIR = "update renovation_first_repair_stats " +
+            "set devices_repaired = devices_repaired + ?, total_days = total_days + ? where passport_model = ?";
+
+    private static final String REBUILD_MONTHLY = "insert into renovation_monthly_stats " +
+            "(passport_model, year_month, renovation_count) " +
+            "select x.passport_model, x.year_month, count(*) from (" +
+            "select coalesce(p.model, '') as passport_model, " +
+            "cast(extract(year from r.renovation_date) * 100 + extract(month from r.renovation_date) as integer) as year_month " +
+            "from renovations r " +
+            "join devices d on d.serial_number = r.device_serial_number " +
+            "left join passports p on p.id = d.passport_id " +
+            "where r.renovation_date is not null" +
+            ") x group by x.passport_model, x.year_month";
+
+    private static final String REBUILD_FIRST_REPAIR = "insert into renovation_first_repair_stats " +
+            "(passport_model, devices_repaired, total_days) " +
+            "select x.passport_model, count(*), coalesce(sum(x.days), 0) from (" +
+            "select coalesce(p.model, '') as passport_model, %s as days " +
+            "from devices d " +
+            "join (select device_serial_number, min(renovation_date) as first_date from renovations " +
+            "group by device_serial_number) f on f.device_serial_number = d.serial_number " +
+            "left join passports p on p.id = d.passport_id " +
+            "where d.purchase_date is not null and f.first_date is not null" +
+            ") x group by x.passport_model";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+
+    public AnalyticsJdbcRepository(JdbcTemplate jdbcTemplate, DatabasePlatform databasePlatform) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+    }
+
+    /**
+     * Model, purchase date and first renovation of each device, read with one query.
+     * Serial numbers that aren't registered are left out.
+     * On PostgreSQL the device rows are locked first, in a statement of their own, so a transaction
+     * recording renovations of the same device waits until this one commits and then reads its first
+     * renovation, a device's first repair is counted once. Call it inside the transaction that inserts
+     * the renovations.
+     */
+    public List<RenovatedDeviceRow> findDevices(Collection<String> serialNumbers) {
+        if (serialNumbers.isEmpty()) {
+            return List.of();
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(serialNumbers.size(), "?"));
+        if (databasePlatform.isPostgres()) {
+            jdbcTemplate.queryForList(LOCK_DEVICES_QUERY.formatted(placeholders), String.class, serialNumbers.toArray());
+        }
+
+        return jdbcTemplate.query(
+                DEVICES_QUERY.formatted(placeholders),
+                (resultSet, rowNum) -> new RenovatedDeviceRow(
+                        resultSet.getString(1),
+                        resultSet.getString(2),
+                        resultSet.getObject(3, LocalDate.class),
+                        resultSet.getObject(4, LocalDate.class)
+                ),
+                serialNumbers.toArray()
+        );
+    }
+
+    public void addMonthlyRenovations(String passportModel, int yearMonth, long renovations) {
+        if (databasePlatform.isPostgres()) {
+            jdbcTemplate.update(
+                    INSERT_MONTHLY + " on conflict (passport_model, year_month) do update " +
+                            "set renovation_count = renovation_monthly_stats.renovation_count + excluded.renovation_count",
+                    passportModel, yearMonth, renovations
+            );
+            return;
+        }
+
+        if (jdbcTemplate.update(UPDATE_MONTHLY, renovations, passportModel, yearMonth) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT_MONTHLY, passportModel, yearMonth, renovations);
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.update(UPDATE_MONTHLY, renovations, passportModel, yearMonth);
+        }
+    }
+
+    /**
+     * @param devices devices repaired for the first time, 0 when only an earlier first repair was found
+     * @param days    change of the days from purchase to first repair, summed over the model's devices
+     */
+    public void addFirstRepairs(String passportModel, long devices, long days) {
+        if (databasePlatform.isPostgres()) {
+            jdbcTemplate.update(
+                    INSERT_FIRST_REPAIR + " on conflict (passport_model) do update " +
+                            "set devices_repaired = renovation_first_repair_stats.devices_repaired + excluded.devices_repaired, " +
+                            "total_days = renovation_first_repair_stats.total_days + excluded.total_days",
+                    passportModel, devices, days
+            );
+            return;
+        }
+
+        if (jdbcTemplate.update(UPDATE_FIRST_REPAIR, devices, days, passportModel) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT_FIRST_REPAIR, passportModel, devices, days);
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.update(UPDATE_FIRST_REPAIR, devices, days, passportModel);
+        }
+    }
+
+    /**
+     * Recomputes both rollup tables from the renovations, call it inside a transaction.
+     * On PostgreSQL the tables are locked first, renovations saved meanwhile wait for the rebuild
+     * to commit and are then added on top of it instead of being lost or counted twice.
+     */
+    public void rebuild() {
+        boolean postgres = databasePlatform.isPostgres();
+        if (postgres) {
+            jdbcTemplate.execute("lock table renovation_monthly_stats, renovation_first_repair_stats in exclusive mode");
+        }
+
+        jdbcTemplate.update("delete from renovation_monthly_stats");
+        jdbcTemplate.update("delete from renovation_first_repair_stats");
+
+        jdbcTemplate.update(REBUILD_MONTHLY);
+        jdbcTemplate.update(REBUILD_FIRST_REPAIR.formatted(
+                postgres ? "(f.first_date - d.purchase_date)" : "datediff('DAY', d.purchase_date, f.first_date)"
+        ));
+    }
+}
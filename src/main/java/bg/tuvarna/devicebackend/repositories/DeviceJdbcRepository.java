@@ -0,0 +1,143 @@
+package bg.tuvarna.devicebackend.repositories;
+
+import bg.tuvarna.devicebackend.config.DatabasePlatform;
+import bg.tuvarna.devicebackend.models.dtos.DeviceExportRow;
+import bg.tuvarna.devicebackend.models.entities.Device;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC access to the devices table for the bulk paths where loading entities
+ * through the persistence context would keep every row in memory.
+ */
+@Repository
+public class DeviceJdbcRepository {
+    private static final String EXPORT_QUERY = "select d.serial_number, d.purchase_date, d.warranty_expiration_date, " +
+            "p.name, p.model, u.full_name, u.email, u.phone " +
+            "from devices d " +
+            "left join passports p on p.id = d.passport_id " +
+            "left join users u on u.id = d.user_id " +
+            "order by d.serial_number";
+
+    private static final String INSERT = "insert into devices " +
+            "(serial_number, purchase_date, warranty_expiration_date, comment, user_id, passport_id) " +
+            "values (?, ?, ?, ?, ?, ?)";
+    private static final int[] TYPES = {
+            Types.VARCHAR, Types.DATE, Types.DATE, Types.VARCHAR, Types.BIGINT, Types.BIGINT
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final int fetchSize;
+
+    public DeviceJdbcRepository(
+            JdbcTemplate jdbcTemplate,
+            DatabasePlatform databasePlatform,
+            @Value("${devices.export.fetch-size:1000}") int fetchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Inserts the device in a single statement, the unique serial number decides concurrent registrations.
+     *
+     * @return false when the serial number is already registered
+     */
+    public boolean insert(Device device) {
+        if (databasePlatform.isPostgres()) {
+            return !jdbcTemplate.queryForList(
+                    INSERT + " on conflict (serial_number) do nothing returning serial_number",
+                    parameters(device),
+                    TYPES,
+                    String.class
+            ).isEmpty();
+        }
+
+        try {
+            jdbcTemplate.update(INSERT, parameters(device), TYPES);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Inserts the devices as one JDBC batch. On PostgreSQL a serial that was registered in the meantime
+     * is skipped instead of failing the batch, its update count is 0.
+     *
+     * @return the update count of every device, in order
+     */
+    @Transactional
+    public int[] insertAll(List<Device> devices) {
+        String sql = databasePlatform.isPostgres() ? INSERT + " on conflict (serial_number) do nothing" : INSERT;
+
+        return jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                Object[] values = parameters(devices.get(i));
+                for (int column = 0; column < values.length; column++) {
+                    statement.setObject(column + 1, values[column], TYPES[column]);
+                }
+            }
+
+            @Override
+            public int getBatchSize() {
+                return devices.size();
+            }
+        });
+    }
+
+    private static Object[] parameters(Device device) {
+        return new Object[]{
+                device.getSerialNumber(),
+                device.getPurchaseDate(),
+                device.getWarrantyExpirationDate(),
+                device.getComment(),
+                device.getUser() != null ? device.getUser().getId() : null,
+                device.getPassport() != null ? device.getPassport().getId() : null
+        };
+    }
+
+    /**
+     * Hands every device to the consumer as it is read. PostgreSQL only keeps a server side cursor
+     * and fetches {@code fetchSize} rows at a time when autocommit is off, so call it inside a transaction.
+     */
+    public void streamAll(Consumer<DeviceExportRow> consumer) {
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            EXPORT_QUERY,
+                            ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY
+                    );
+                    statement.setFetchSize(fetchSize);
+                    return statement;
+                },
+                (RowCallbackHandler) resultSet -> consumer.accept(new DeviceExportRow(
+                        resultSet.getString(1),
+                        resultSet.getObject(2, LocalDate.class),
+                        resultSet.getObject(3, LocalDate.class),
+                        resultSet.getString(4),
+                        resultSet.getString(5),
+                        resultSet.getString(6),
+                        resultSet.getString(7),
+                        resultSet.getString(8)
+                ))
+        );
+    }
+}
@@ -1,14 +1,23 @@
 package bg.tuvarna.devicebackend.repositories;
 
+import bg.tuvarna.devicebackend.models.dtos.DeviceListingVO;
 import bg.tuvarna.devicebackend.models.entities.Device;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
 @Repository
 public interface DeviceRepository extends JpaRepository<Device, String> {
     @Transactional
@@ -16,20 +25,79 @@ public interface DeviceRepository extends JpaRepository<Device, String> {
     @Query("delete from Device d where d.serialNumber = ?1")
     void deleteBySerialNumber(String serialNumber);
 
-    @Query("select distinct d from Device d " +
-            "left join d.user u " +
-            "left join d.passport p " +
-            "where (?1 is null OR ( ?1 is not null AND (lower(d.serialNumber) LIKE concat('%',lower(?1),'%') OR " +
+    @EntityGraph(Device.DETAILS_GRAPH)
+    Optional<Device> findDetailsBySerialNumber(String serialNumber);
+
+    @Query("select d from Device d left join fetch d.passport " +
+            "where d.user.id in :userIds AND (:serialNumber is null OR d.serialNumber LIKE concat('%', :serialNumber, '%')) " +
+            "order by d.serialNumber")
+    List<Device> findByUserIds(Collection<Long> userIds, String serialNumber);
+
+    @Query("select d.serialNumber from Device d where d.serialNumber in :serialNumbers")
+    Set<String> findExistingSerialNumbers(Collection<String> serialNumbers);
+
+    String SEARCH_CONDITION = "(?1 is null OR ( ?1 is not null AND (lower(d.serialNumber) LIKE concat('%',lower(?1),'%') OR " +
             "lower(u.fullName) LIKE concat('%',lower(?1),'%') OR " +
             "lower(u.address) LIKE concat('%',lower(?1),'%') OR " +
             "lower(u.email) LIKE concat('%',lower(?1),'%') OR " +
             "lower(u.phone) LIKE concat('%',lower(?1),'%') OR " +
             "lower(p.name) LIKE concat('%',lower(?1),'%') OR " +
-            "lower(p.model) LIKE concat('%',lower(?1),'%'))))")
-    Page<Device> findAll(String searchBy, Pageable pageable);
+            "lower(p.model) LIKE concat('%',lower(?1),'%'))))";
 
-    @Query("select distinct d from Device d " +
+    /**
+     * Listing rows with the passport and owner columns joined in and the renovations counted by the
+     * {@code Device.renovationCount} formula, so a page is one statement however many devices it holds.
+     */
+    String LISTING_QUERY = "select new bg.tuvarna.devicebackend.models.dtos.DeviceListingVO(" +
+            "d.serialNumber, d.purchaseDate, d.warrantyExpirationDate, d.comment, " +
+            "p.id, p.name, p.model, u.id, u.fullName, " +
+            "d.renovationCount) " +
+            "from Device d " +
             "left join d.user u " +
-            "left join d.passport p ")
-    Page<Device> getAllDevices(Pageable pageable);
+            "left join d.passport p ";
+
+    @Query(value = LISTING_QUERY + "where " + SEARCH_CONDITION,
+            countQuery = "select count(d) from Device d left join d.user u left join d.passport p where " + SEARCH_CONDITION)
+    Page<DeviceListingVO> findListing(String searchBy, Pageable pageable);
+
+    @Query(LISTING_QUERY + "where " + SEARCH_CONDITION)
+    Slice<DeviceListingVO> findListingSlice(String searchBy, Pageable pageable);
+
+    @Query(value = LISTING_QUERY, countQuery = "select count(d) from Device d")
+    Page<DeviceListingVO> findAllListing(Pageable pageable);
+
+    @Query(LISTING_QUERY)
+    Slice<DeviceListingVO> findAllListingSlice(Pageable pageable);
+
+    @Query(LISTING_QUERY + "where d.serialNumber in :serialNumbers")
+    List<DeviceListingVO> findListingBySerialNumbers(Collection<String> serialNumbers);
+
+    @Query(LISTING_QUERY + "where d.serialNumber > :serialNumber order by d.serialNumber")
+    List<DeviceListingVO> findPageAfterSerialNumber(String serialNumber, Pageable pageable);
+
+    @Query(LISTING_QUERY + "where d.purchaseDate is not null order by d.purchaseDate, d.serialNumber")
+    List<DeviceListingVO> findFirstPageByPurchaseDate(Pageable pageable);
+
+    @Query(LISTING_QUERY + "where (d.purchaseDate, d.serialNumber) > (:purchaseDate, :serialNumber) " +
+            "order by d.purchaseDate, d.serialNumber")
+    List<DeviceListingVO> findPageAfterPurchaseDate(LocalDate purchaseDate, String serialNumber, Pageable pageable);
+
+    /**
+     * Devices without a purchase date, which the purchase date order lists last by serial number.
+     */
+    @Query(LISTING_QUERY + "where d.purchaseDate is null AND d.serialNumber > :serialNumber order by d.serialNumber")
+    List<DeviceListingVO> findPageWithoutPurchaseDate(String serialNumber, Pageable pageable);
+
+    String SEARCH_SERIAL_NUMBERS_QUERY = "select d.serial_number from devices d " +
+            "where d.search_document like concat('%', lower(:searchBy), '%') " +
+            "order by ts_rank(d.search_vector, plainto_tsquery('simple', :searchBy)) + " +
+            "similarity(d.search_document, lower(:searchBy)) desc, d.serial_number";
+
+    @Query(value = SEARCH_SERIAL_NUMBERS_QUERY,
+            countQuery = "select count(*) from devices d where d.search_document like concat('%', lower(:searchBy), '%')",
+            nativeQuery = true)
+    Page<String> searchSerialNumbers(String searchBy, Pageable pageable);
+
+    @Query(value = SEARCH_SERIAL_NUMBERS_QUERY, nativeQuery = true)
+    Slice<String> searchSerialNumberSlice(String searchBy, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package bg.tuvarna.devicebackend.repositories;
+
+import bg.tuvarna.devicebackend.models.entities.FirstRepairStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FirstRepairStatRepository extends JpaRepository<FirstRepairStat, String> {
+    List<FirstRepairStat> findAllByOrderByPassportModel();
+}
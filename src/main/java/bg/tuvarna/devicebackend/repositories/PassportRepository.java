@@ -1,6 +1,8 @@
 package bg.tuvarna.devicebackend.repositories;
 
 import bg.tuvarna.devicebackend.models.entities.Passport;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -9,10 +11,16 @@ import java.util.List;
 
 @Repository
 public interface PassportRepository extends JpaRepository<Passport, Long> {
-    @Query("select p from Passport p where p.serialPrefix like :serialPrefix and p.fromSerialNumber between :fromSerialNumberStart and :toSerialNumber" +
-            " or p.serialPrefix like :serialPrefix and p.toSerialNumber between :fromSerialNumberStart and :toSerialNumber")
-    List<Passport> findByFromSerialNumberBetween(String serialPrefix, int fromSerialNumberStart, int toSerialNumber);
+    @Query("select count(p) > 0 from Passport p where p.serialPrefix = :serialPrefix" +
+            " and p.fromSerialNumber <= :toSerialNumber and p.toSerialNumber >= :fromSerialNumber")
+    boolean existsOverlapping(String serialPrefix, int fromSerialNumber, int toSerialNumber);
+
+    @Query("select count(p) > 0 from Passport p where p.serialPrefix = :serialPrefix" +
+            " and p.fromSerialNumber <= :toSerialNumber and p.toSerialNumber >= :fromSerialNumber and p.id <> :id")
+    boolean existsOverlappingOther(String serialPrefix, int fromSerialNumber, int toSerialNumber, Long id);
 
     @Query("select p from Passport p where :serialId LIKE CONCAT(p.serialPrefix, '%')")
     List<Passport> findByFromSerial(String serialId);
+
+    Slice<Passport> findAllBy(Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package bg.tuvarna.devicebackend.repositories;
+
+import bg.tuvarna.devicebackend.models.entities.RenovationMonthlyStat;
+import bg.tuvarna.devicebackend.models.entities.RenovationMonthlyStatId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RenovationMonthlyStatRepository extends JpaRepository<RenovationMonthlyStat, RenovationMonthlyStatId> {
+    @Query("select s from RenovationMonthlyStat s " +
+            "where (?1 is null OR s.id.passportModel = ?1) and s.id.yearMonth between ?2 and ?3 " +
+            "order by s.id.yearMonth, s.id.passportModel")
+    List<RenovationMonthlyStat> findRange(String passportModel, int fromYearMonth, int toYearMonth);
+}
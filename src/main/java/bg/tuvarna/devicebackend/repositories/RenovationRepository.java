@@ -1,9 +1,32 @@
 package bg.tuvarna.devicebackend.repositories;
 
+import bg.tuvarna.devicebackend.models.dtos.RenovationHistoryVO;
 import bg.tuvarna.devicebackend.models.entities.Renovation;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @Repository
 public interface RenovationRepository extends JpaRepository<Renovation, Long> {
-}
\ No newline at end of file
+    String HISTORY_QUERY = "select new bg.tuvarna.devicebackend.models.dtos.RenovationHistoryVO(r.id, r.description, r.renovationDate) " +
+            "from Renovation r " +
+            "where r.device.serialNumber = :serialNumber and r.renovationDate between :from and :to ";
+
+    @Query(HISTORY_QUERY + "order by r.renovationDate desc, r.id desc")
+    List<RenovationHistoryVO> findHistory(String serialNumber, LocalDate from, LocalDate to, Pageable pageable);
+
+    @Query(HISTORY_QUERY + "and (r.renovationDate, r.id) < (:renovationDate, :id) " +
+            "order by r.renovationDate desc, r.id desc")
+    List<RenovationHistoryVO> findHistoryBefore(
+            String serialNumber,
+            LocalDate from,
+            LocalDate to,
+            LocalDate renovationDate,
+            Long id,
+            Pageable pageable
+    );
+}
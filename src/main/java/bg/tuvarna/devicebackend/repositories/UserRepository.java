@@ -1,38 +1,87 @@
 package bg.tuvarna.devicebackend.repositories;
 
+import bg.tuvarna.devicebackend.models.dtos.UserContact;
+import bg.tuvarna.devicebackend.models.dtos.UserCredentials;
 import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.models.enums.UserRole;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
-    User getByEmail(String email);
-
-    @Query("select u from User u where u.email = ?1 OR u.phone = ?1")
-    Optional<User> findByEmailOrPhone(String email);
-
-    User getByPhone(String phone);
-
-    @Query("select distinct u from User u " +
-            "left join u.devices d " +
-            "left join d.passport p " +
-            "where u.role!='ADMIN' AND (?1 is null OR ( ?1 is not null AND lower(u.fullName) LIKE concat('%',lower(?1),'%') OR " +
-            "lower(u.address) LIKE concat('%',lower(?1),'%') OR " +
-            "lower(u.email) LIKE concat('%',lower(?1),'%') OR " +
-            "lower(u.phone) LIKE concat('%',lower(?1),'%') OR " +
-            "lower(p.name) LIKE concat('%',lower(?1),'%') OR " +
-            "lower(p.model) LIKE concat('%',lower(?1),'%') OR " +
-            "lower(d.serialNumber) LIKE concat('%',lower(?1),'%')))")
-    Page<User> searchBy(String searchBy, Pageable pageable);
-
-    @Query("select distinct u from User u " +
-            "left join u.devices d " +
-            "left join d.passport p " +
-            "where u.role!='ADMIN'")
-    Page<User> getAllUsers(Pageable pageable);
-}
\ No newline at end of file
+    @Query("select new bg.tuvarna.devicebackend.models.dtos.UserCredentials(u.id, u.password, u.role) from User u " +
+            "where lower(u.email) = lower(?1) OR u.phone = ?1")
+    Optional<UserCredentials> findCredentials(String username);
+
+    /**
+     * Every user already holding the email (in any case) or the phone, in one round trip.
+     */
+    @Query("select new bg.tuvarna.devicebackend.models.dtos.UserContact(u.id, u.email, u.phone) from User u " +
+            "where lower(u.email) = lower(:email) OR u.phone = :phone")
+    List<UserContact> findContacts(String email, String phone);
+
+    @EntityGraph(User.PROFILE_GRAPH)
+    Optional<User> findProfileById(Long id);
+
+    long countByRoleNot(UserRole role);
+
+    String USER_IDS_QUERY = "select u.id from User u where u.role <> 'ADMIN' order by u.id";
+
+    @Query(value = USER_IDS_QUERY, countQuery = "select count(u) from User u where u.role <> 'ADMIN'")
+    Page<Long> findUserIds(Pageable pageable);
+
+    @Query(USER_IDS_QUERY)
+    Slice<Long> findUserIdSlice(Pageable pageable);
+
+    /**
+     * Matches on the user columns or on any of the user's devices and passports, the devices are
+     * only probed with exists so the page is over distinct user ids without a join fan out.
+     */
+    String SEARCH_USER_IDS_CONDITION = "u.role <> 'ADMIN' AND (" +
+            "lower(u.fullName) LIKE concat('%',lower(:searchBy),'%') OR " +
+            "lower(u.address) LIKE concat('%',lower(:searchBy),'%') OR " +
+            "lower(u.email) LIKE concat('%',lower(:searchBy),'%') OR " +
+            "lower(u.phone) LIKE concat('%',lower(:searchBy),'%') OR " +
+            "exists (select d.serialNumber from Device d left join d.passport p where d.user = u AND (" +
+            "lower(d.serialNumber) LIKE concat('%',lower(:searchBy),'%') OR " +
+            "lower(p.name) LIKE concat('%',lower(:searchBy),'%') OR " +
+            "lower(p.model) LIKE concat('%',lower(:searchBy),'%'))))";
+
+    @Query(value = "select u.id from User u where " + SEARCH_USER_IDS_CONDITION + " order by u.id",
+            countQuery = "select count(u) from User u where " + SEARCH_USER_IDS_CONDITION)
+    Page<Long> searchUserIds(String searchBy, Pageable pageable);
+
+    @Query("select u.id from User u where " + SEARCH_USER_IDS_CONDITION + " order by u.id")
+    Slice<Long> searchUserIdSlice(String searchBy, Pageable pageable);
+
+    String SEARCH_IDS_QUERY = "select m.id from (" +
+            "select u.id, ts_rank(u.search_vector, plainto_tsquery('simple', :searchBy)) + " +
+            "similarity(u.search_document, lower(:searchBy)) as score " +
+            "from users u where u.search_document like concat('%', lower(:searchBy), '%') " +
+            "union all " +
+            "select d.user_id, ts_rank(d.search_vector, plainto_tsquery('simple', :searchBy)) + " +
+            "similarity(d.search_document, lower(:searchBy)) " +
+            "from devices d where d.user_id is not null and d.search_document like concat('%', lower(:searchBy), '%')" +
+            ") m join users u on u.id = m.id where u.role <> 'ADMIN' " +
+            "group by m.id order by max(m.score) desc, m.id";
+
+    @Query(value = SEARCH_IDS_QUERY,
+            countQuery = "select count(distinct m.id) from (" +
+                    "select u.id from users u where u.search_document like concat('%', lower(:searchBy), '%') " +
+                    "union all " +
+                    "select d.user_id from devices d where d.user_id is not null and d.search_document like concat('%', lower(:searchBy), '%')" +
+                    ") m join users u on u.id = m.id where u.role <> 'ADMIN'",
+            nativeQuery = true)
+    Page<Long> searchIds(String searchBy, Pageable pageable);
+
+    @Query(value = SEARCH_IDS_QUERY, nativeQuery = true)
+    Slice<Long> searchIdSlice(String searchBy, Pageable pageable);
+}
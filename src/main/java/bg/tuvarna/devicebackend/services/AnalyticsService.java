@@ -0,0 +1,149 @@
+package bg.tuvarna.devicebackend.services;
+
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
+import bg.tuvarna.devicebackend.models.dtos.FirstRepairVO;
+import bg.tuvarna.devicebackend.models.dtos.MonthlyRenovationsVO;
+import bg.tuvarna.devicebackend.models.dtos.RenovatedDeviceRow;
+import bg.tuvarna.devicebackend.models.entities.Renovation;
+import bg.tuvarna.devicebackend.repositories.AnalyticsJdbcRepository;
+import bg.tuvarna.devicebackend.repositories.FirstRepairStatRepository;
+import bg.tuvarna.devicebackend.repositories.RenovationMonthlyStatRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Renovation counts per passport model and month, and the average time from purchase to first repair
+ * per passport model. Both are read from small rollup tables, {@link #recordRenovations(List)} adds
+ * every saved renovation to them and the nightly {@link #rebuild()} recomputes them from the renovations,
+ * which also picks up passports that changed model since.
+ */
+@Service
+public class AnalyticsService {
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsService.class);
+    private static final int DEFAULT_MONTHS = 12;
+
+    private final AnalyticsJdbcRepository analyticsJdbcRepository;
+    private final RenovationMonthlyStatRepository monthlyStatRepository;
+    private final FirstRepairStatRepository firstRepairStatRepository;
+
+    public AnalyticsService(
+            AnalyticsJdbcRepository analyticsJdbcRepository,
+            RenovationMonthlyStatRepository monthlyStatRepository,
+            FirstRepairStatRepository firstRepairStatRepository
+    ) {
+        this.analyticsJdbcRepository = analyticsJdbcRepository;
+        this.monthlyStatRepository = monthlyStatRepository;
+        this.firstRepairStatRepository = firstRepairStatRepository;
+    }
+
+    /**
+     * Adds the renovations to the rollups. Call it in the transaction that saves them and before they are
+     * inserted, the earliest renovation of each device is read from the table to tell first repairs apart.
+     */
+    @Transactional
+    public void recordRenovations(List<Renovation> renovations) {
+        Map<String, LocalDate> firstDates = new HashMap<>();
+        for (Renovation renovation : renovations) {
+            if (renovation.getRenovationDate() != null) {
+                firstDates.merge(renovation.getDevice().getSerialNumber(), renovation.getRenovationDate(), (a, b) -> a.isBefore(b) ? a : b);
+            }
+        }
+        if (firstDates.isEmpty()) {
+            return;
+        }
+
+        Map<String, RenovatedDeviceRow> devices = analyticsJdbcRepository.findDevices(firstDates.keySet())
+                .stream()
+                .collect(Collectors.toMap(RenovatedDeviceRow::serialNumber, Function.identity()));
+
+        // Sorted so concurrent transactions update the rows in the same order.
+        Map<String, Map<Integer, Long>> monthly = new TreeMap<>();
+        for (Renovation renovation : renovations) {
+            RenovatedDeviceRow device = devices.get(renovation.getDevice().getSerialNumber());
+            if (device == null || renovation.getRenovationDate() == null) {
+                continue;
+            }
+            monthly.computeIfAbsent(device.passportModel(), model -> new TreeMap<>())
+                    .merge(yearMonth(renovation.getRenovationDate()), 1L, Long::sum);
+        }
+
+        Map<String, long[]> firstRepairs = new TreeMap<>();
+        for (RenovatedDeviceRow device : devices.values()) {
+            LocalDate firstDate = firstDates.get(device.serialNumber());
+            if (device.purchaseDate() == null) {
+                continue;
+            }
+
+            if (device.firstRenovationDate() == null) {
+                long[] totals = firstRepairs.computeIfAbsent(device.passportModel(), model -> new long[2]);
+                totals[0]++;
+                totals[1] += ChronoUnit.DAYS.between(device.purchaseDate(), firstDate);
+            } else if (firstDate.isBefore(device.firstRenovationDate())) {
+                long[] totals = firstRepairs.computeIfAbsent(device.passportModel(), model -> new long[2]);
+                totals[1] -= ChronoUnit.DAYS.between(firstDate, device.firstRenovationDate());
+            }
+        }
+
+        monthly.forEach((model, months) -> months.forEach(
+                (month, count) -> analyticsJdbcRepository.addMonthlyRenovations(model, month, count)
+        ));
+        firstRepairs.forEach((model, totals) -> analyticsJdbcRepository.addFirstRepairs(model, totals[0], totals[1]));
+    }
+
+    /**
+     * Recomputes the rollups from scratch, every night and on demand.
+     */
+    @Scheduled(cron = "${analytics.rebuild.cron:0 30 3 * * *}")
+    @Transactional
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        analyticsJdbcRepository.rebuild();
+        logger.info("Rebuilt renovation analytics in {} ms", System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Renovations per model and month, oldest month first. Both months are inclusive and default to
+     * the last {@value #DEFAULT_MONTHS} months, no model means every model.
+     */
+    public List<MonthlyRenovationsVO> getMonthlyRenovations(String passportModel, YearMonth from, YearMonth to) {
+        YearMonth toMonth = to != null ? to : YearMonth.now();
+        YearMonth fromMonth = from != null ? from : toMonth.minusMonths(DEFAULT_MONTHS - 1);
+        if (fromMonth.isAfter(toMonth)) {
+            throw new CustomException("From month must not be after to month", ErrorCode.Validation);
+        }
+
+        return monthlyStatRepository.findRange(passportModel, yearMonth(fromMonth), yearMonth(toMonth))
+                .stream()
+                .map(MonthlyRenovationsVO::new)
+                .toList();
+    }
+
+    public List<FirstRepairVO> getFirstRepairs() {
+        return firstRepairStatRepository.findAllByOrderByPassportModel()
+                .stream()
+                .map(FirstRepairVO::new)
+                .toList();
+    }
+
+    private static int yearMonth(LocalDate date) {
+        return yearMonth(YearMonth.from(date));
+    }
+
+    private static int yearMonth(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+}
@@ -0,0 +1,84 @@
+package bg.tuvarna.devicebackend.services;
+
+import bg.tuvarna.devicebackend.models.dtos.DeviceExportRow;
+import bg.tuvarna.devicebackend.models.enums.ExportFormat;
+import bg.tuvarna.devicebackend.repositories.DeviceJdbcRepository;
+import bg.tuvarna.devicebackend.utils.Csv;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+@Service
+public class DeviceExportService {
+    private final DeviceJdbcRepository deviceJdbcRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+
+    public DeviceExportService(
+            DeviceJdbcRepository deviceJdbcRepository,
+            ObjectMapper objectMapper,
+            @Value("${devices.export.timeout:30m}") Duration timeout
+    ) {
+        this.deviceJdbcRepository = deviceJdbcRepository;
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+    }
+
+    /**
+     * How long an export may stream before the request is timed out, the export is the only
+     * request that runs longer than the default async timeout.
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Writes the whole device registry to the stream row by row, nothing is collected in memory.
+     * Read only transaction so the rows come from a server side cursor.
+     */
+    @Transactional(readOnly = true)
+    public void export(ExportFormat format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+        if (format == ExportFormat.CSV) {
+            writer.write(Csv.line(
+                    "serialNumber", "purchaseDate", "warrantyExpirationDate",
+                    "passportName", "passportModel", "ownerName", "ownerEmail", "ownerPhone"
+            ));
+        }
+
+        try {
+            deviceJdbcRepository.streamAll(row -> write(writer, format, row));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+    }
+
+    private void write(Writer writer, ExportFormat format, DeviceExportRow row) {
+        try {
+            if (format == ExportFormat.CSV) {
+                writer.write(Csv.line(
+                        row.serialNumber(), row.purchaseDate(), row.warrantyExpirationDate(),
+                        row.passportName(), row.passportModel(), row.ownerName(), row.ownerEmail(), row.ownerPhone()
+                ));
+            } else {
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
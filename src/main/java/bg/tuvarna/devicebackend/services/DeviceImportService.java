@@ -0,0 +1,167 @@
+package bg.tuvarna.devicebackend.services;
+
+import bg.tuvarna.devicebackend.models.dtos.DeviceImportReport;
+import bg.tuvarna.devicebackend.models.dtos.DeviceImportRowResult;
+import bg.tuvarna.devicebackend.models.entities.Device;
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.repositories.DeviceJdbcRepository;
+import bg.tuvarna.devicebackend.repositories.DeviceRepository;
+import bg.tuvarna.devicebackend.utils.CsvReader;
+import bg.tuvarna.devicebackend.utils.SerialPrefixTrie;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Imports sold devices from a CSV file with the columns serial number and purchase date (yyyy-MM-dd),
+ * an optional header row is skipped. Passports are resolved from one snapshot, existing serials are
+ * checked with one query per batch and every batch is written with a single JDBC batch insert.
+ * Devices are added the same way as {@link DeviceService#addAnonymousDevice}, without an owner.
+ */
+@Service
+public class DeviceImportService {
+    private final DeviceRepository deviceRepository;
+    private final DeviceJdbcRepository deviceJdbcRepository;
+    private final PassportService passportService;
+    private final int batchSize;
+
+    public DeviceImportService(
+            DeviceRepository deviceRepository,
+            DeviceJdbcRepository deviceJdbcRepository,
+            PassportService passportService,
+            @Value("${devices.import.batch-size:1000}") int batchSize
+    ) {
+        this.deviceRepository = deviceRepository;
+        this.deviceJdbcRepository = deviceJdbcRepository;
+        this.passportService = passportService;
+        this.batchSize = batchSize;
+    }
+
+    public DeviceImportReport importDevices(InputStream inputStream) throws IOException {
+        SerialPrefixTrie passports = passportService.serialIndex();
+        Set<String> seen = new HashSet<>();
+        List<DeviceImportRowResult> results = new ArrayList<>();
+        List<PendingDevice> batch = new ArrayList<>(batchSize);
+
+        try (CsvReader reader = new CsvReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            List<String> record;
+            while ((record = reader.readRecord()) != null) {
+                long line = reader.getRecordLine();
+                if (isBlank(record) || (line == 1 && "serialNumber".equalsIgnoreCase(record.get(0).trim()))) {
+                    continue;
+                }
+
+                String serialNumber = record.get(0).trim();
+                String error = validate(record, serialNumber, passports, seen);
+                if (error != null) {
+                    results.add(DeviceImportRowResult.rejected(line, serialNumber, error));
+                    continue;
+                }
+
+                batch.add(new PendingDevice(line, toDevice(serialNumber, LocalDate.parse(record.get(1).trim()), passports)));
+                if (batch.size() == batchSize) {
+                    results.addAll(insert(batch));
+                    batch.clear();
+                }
+            }
+        }
+        results.addAll(insert(batch));
+
+        results.sort(Comparator.comparingLong(DeviceImportRowResult::line));
+        return new DeviceImportReport(results);
+    }
+
+    private String validate(List<String> record, String serialNumber, SerialPrefixTrie passports, Set<String> seen) {
+        if (record.size() < 2) {
+            return "Expected serial number and purchase date";
+        }
+        if (serialNumber.isEmpty()) {
+            return "Serial number is required";
+        }
+        try {
+            LocalDate.parse(record.get(1).trim());
+        } catch (DateTimeParseException e) {
+            return "Invalid purchase date";
+        }
+        if (passports.find(serialNumber) == null) {
+            return "Passport not found for serial number";
+        }
+        if (!seen.add(serialNumber)) {
+            return "Duplicate serial number in file";
+        }
+        return null;
+    }
+
+    private List<DeviceImportRowResult> insert(List<PendingDevice> batch) {
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+
+        List<DeviceImportRowResult> results = new ArrayList<>(batch.size());
+        List<PendingDevice> pending = rejectExisting(batch, results);
+
+        int[] counts;
+        try {
+            counts = deviceJdbcRepository.insertAll(pending.stream().map(PendingDevice::device).toList());
+        } catch (DataIntegrityViolationException e) {
+            // Registered by someone else after the check, the batch was rolled back so check again.
+            results.clear();
+            pending = rejectExisting(batch, results);
+            counts = deviceJdbcRepository.insertAll(pending.stream().map(PendingDevice::device).toList());
+        }
+
+        for (int i = 0; i < pending.size(); i++) {
+            PendingDevice device = pending.get(i);
+            results.add(counts[i] == 0
+                    ? DeviceImportRowResult.rejected(device.line(), device.serialNumber(), "Device already registered")
+                    : DeviceImportRowResult.accepted(device.line(), device.serialNumber()));
+        }
+
+        return results;
+    }
+
+    private List<PendingDevice> rejectExisting(List<PendingDevice> batch, List<DeviceImportRowResult> results) {
+        Set<String> existing = deviceRepository.findExistingSerialNumbers(
+                batch.stream().map(PendingDevice::serialNumber).toList()
+        );
+
+        List<PendingDevice> pending = new ArrayList<>(batch.size());
+        for (PendingDevice device : batch) {
+            if (existing.contains(device.serialNumber())) {
+                results.add(DeviceImportRowResult.rejected(device.line(), device.serialNumber(), "Device already registered"));
+            } else {
+                pending.add(device);
+            }
+        }
+        return pending;
+    }
+
+    private static Device toDevice(String serialNumber, LocalDate purchaseDate, SerialPrefixTrie passports) {
+        Passport passport = passports.find(serialNumber);
+
+        Device device = new Device();
+        device.setSerialNumber(serialNumber);
+        device.setPurchaseDate(purchaseDate);
+        device.setPassport(passport);
+        device.setWarrantyExpirationDate(purchaseDate.plusMonths(passport.getWarrantyMonths()));
+        return device;
+    }
+
+    private static boolean isBlank(List<String> record) {
+        return record.stream().allMatch(String::isBlank);
+    }
+
+    private record PendingDevice(long line, Device device) {
+        String serialNumber() {
+            return device.getSerialNumber();
+        }
+    }
+}
@@ -1,58 +1,107 @@
 package bg.tuvarna.devicebackend.services;
 
+import bg.tuvarna.devicebackend.cache.UserProfileCache;
 import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
 import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
 import bg.tuvarna.devicebackend.models.dtos.DeviceCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.DeviceListingVO;
 import bg.tuvarna.devicebackend.models.dtos.DeviceUpdateVO;
 import bg.tuvarna.devicebackend.models.entities.Device;
 import bg.tuvarna.devicebackend.models.entities.Passport;
 import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.models.enums.CountMode;
+import bg.tuvarna.devicebackend.models.enums.DeviceSortOrder;
+import bg.tuvarna.devicebackend.repositories.DeviceJdbcRepository;
 import bg.tuvarna.devicebackend.repositories.DeviceRepository;
+import bg.tuvarna.devicebackend.utils.CursorPage;
 import bg.tuvarna.devicebackend.utils.CustomPage;
+import bg.tuvarna.devicebackend.utils.DeviceCursor;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 public class DeviceService {
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
     private final DeviceRepository deviceRepository;
+    private final DeviceJdbcRepository deviceJdbcRepository;
     private final PassportService passportService;
+    private final SearchService searchService;
+    private final RowCountEstimator rowCountEstimator;
+    private final UserProfileCache userProfileCache;
 
     public Device registerDevice(String serialId, LocalDate purchaseDate, User user) {
+        Device device;
         try {
             Passport passport = passportService.findPassportBySerialId(serialId);
 
-            Device device = new Device();
+            device = new Device();
             device.setSerialNumber(serialId);
             device.setPassport(passport);
             device.setUser(user);
             device.setPurchaseDate(purchaseDate);
             device.setWarrantyExpirationDate(purchaseDate.plusMonths(passport.getWarrantyMonths()).plusMonths(12));
-
-            return deviceRepository.save(device);
         } catch (RuntimeException e) {
             throw new CustomException("Invalid serial number", ErrorCode.Failed);
         }
+
+        return insert(device);
     }
 
     public Device findDevice(String id) {
-        return deviceRepository.findById(id).orElse(null);
+        return deviceRepository.findDetailsBySerialNumber(id).orElse(null);
+    }
+
+    /**
+     * Devices of all the given users in one query, optionally only the ones whose serial number contains the filter.
+     */
+    public List<Device> findDevicesOfUsers(Collection<Long> userIds, String serialNumberFilter) {
+        return deviceRepository.findByUserIds(userIds, serialNumberFilter);
+    }
+
+    /**
+     * The serial numbers out of the given ones that are registered, in one query.
+     */
+    public Set<String> findExistingSerialNumbers(Collection<String> serialNumbers) {
+        return deviceRepository.findExistingSerialNumbers(serialNumbers);
+    }
+
+    /**
+     * A reference to a device known to exist, for associations, without loading it.
+     */
+    public Device getDeviceReference(String serialNumber) {
+        return deviceRepository.getReferenceById(serialNumber);
     }
 
     public Device isDeviceExists(String id) {
-        if (!deviceRepository.existsById(id))
-            throw new CustomException("Device not registered", ErrorCode.NotRegistered);
+        checkRegistered(id);
         return findDevice(id);
     }
 
-    public Device registerNewDevice(DeviceCreateVO deviceCreateVO, User user) {
-        alreadyExist(deviceCreateVO.deviceSerialNumber());
+    public void checkRegistered(String serialNumber) {
+        if (!deviceRepository.existsById(serialNumber))
+            throw new CustomException("Device not registered", ErrorCode.NotRegistered);
+    }
 
+    public Device registerNewDevice(DeviceCreateVO deviceCreateVO, User user) {
         if (user == null) {
             throw new CustomException("User not found", ErrorCode.EntityNotFound);
         }
@@ -61,7 +110,7 @@ public class DeviceService {
     }
 
     public void alreadyExist(String serialNumber) {
-        if (findDevice(serialNumber) != null)
+        if (deviceRepository.existsById(serialNumber))
             throw new CustomException("Device already registered", ErrorCode.AlreadyExists);
     }
 
@@ -80,12 +129,15 @@ public class DeviceService {
         deviceToUpdate.setWarrantyExpirationDate(warrantyDate);
         deviceToUpdate.setComment(device.comment());
 
-        return deviceRepository.save(deviceToUpdate);
+        Device saved = deviceRepository.save(deviceToUpdate);
+        evictOwner(saved);
+        return saved;
     }
 
     @Transactional
     public void deleteDevice(String serialNumber) {
         try {
+            deviceRepository.findById(serialNumber).ifPresent(this::evictOwner);
             deviceRepository.deleteBySerialNumber(serialNumber);
         } catch (RuntimeException e) {
             throw new CustomException("Cannot delete device: renovations exist", ErrorCode.Failed);
@@ -93,37 +145,140 @@ public class DeviceService {
     }
 
     public Device addAnonymousDevice(DeviceCreateVO device) {
-        alreadyExist(device.deviceSerialNumber());
+        Device deviceToAdd;
         try {
             Passport passport = passportService.findPassportBySerialId(device.deviceSerialNumber());
 
-            Device deviceToAdd = new Device();
+            deviceToAdd = new Device();
             deviceToAdd.setSerialNumber(device.deviceSerialNumber());
             deviceToAdd.setPurchaseDate(device.purchaseDate());
             deviceToAdd.setPassport(passport);
             deviceToAdd.setWarrantyExpirationDate(device.purchaseDate().plusMonths(passport.getWarrantyMonths()));
-
-            return deviceRepository.save(deviceToAdd);
         } catch (RuntimeException e) {
             throw new CustomException("Invalid serial number", ErrorCode.Failed);
         }
+
+        return insert(deviceToAdd);
+    }
+
+    /**
+     * Registers the device with one insert instead of a lookup followed by a merge, so two concurrent
+     * registrations of the same serial number can't both pass the check.
+     */
+    private Device insert(Device device) {
+        if (!deviceJdbcRepository.insert(device)) {
+            throw new CustomException("Device already registered", ErrorCode.AlreadyExists);
+        }
+        evictOwner(device);
+        return device;
+    }
+
+    private void evictOwner(Device device) {
+        if (device.getUser() != null) {
+            userProfileCache.evict(device.getUser().getId());
+        }
     }
 
-    public CustomPage<Device> getDevices(String searchBy, int page, int size) {
-        Page<Device> devicePage;
+    /**
+     * Offset paged listing. {@link CountMode#EXACT} runs the count query over the same joins,
+     * the other modes only fetch one extra row to fill {@code hasNext}.
+     * {@link CountMode#ESTIMATED} takes the total from the planner statistics when listing all devices,
+     * a filtered listing has no cheap estimate and is returned without totals.
+     */
+    public CustomPage<DeviceListingVO> getDevices(String searchBy, int page, int size, CountMode countMode) {
+        Pageable pageable = PageRequest.of(page - 1, size);
+
+        if (countMode == CountMode.EXACT) {
+            Page<DeviceListingVO> devicePage;
+            if (searchBy == null) {
+                devicePage = deviceRepository.findAllListing(pageable);
+            } else if (searchService.isFullText()) {
+                Page<String> serialNumbers = searchService.searchDevices(searchBy, pageable);
+                devicePage = new PageImpl<>(findInOrder(serialNumbers.getContent()), pageable, serialNumbers.getTotalElements());
+            } else {
+                devicePage = deviceRepository.findListing(searchBy, pageable);
+            }
+            return CustomPage.of(devicePage);
+        }
+
+        Slice<DeviceListingVO> devices;
         if (searchBy == null) {
-            devicePage = deviceRepository.getAllDevices(PageRequest.of(page - 1, size));
+            devices = deviceRepository.findAllListingSlice(pageable);
+        } else if (searchService.isFullText()) {
+            Slice<String> serialNumbers = searchService.searchDeviceSlice(searchBy, pageable);
+            devices = new SliceImpl<>(findInOrder(serialNumbers.getContent()), pageable, serialNumbers.hasNext());
         } else {
-            devicePage = deviceRepository.findAll(searchBy, PageRequest.of(page - 1, size));
+            devices = deviceRepository.findListingSlice(searchBy, pageable);
+        }
+
+        Long totalItems = null;
+        if (countMode == CountMode.ESTIMATED && searchBy == null) {
+            totalItems = rowCountEstimator.estimate("devices").orElseGet(deviceRepository::count);
+        }
+
+        return CustomPage.of(devices, totalItems);
+    }
+
+    private List<DeviceListingVO> findInOrder(List<String> serialNumbers) {
+        if (serialNumbers.isEmpty()) {
+            return List.of();
         }
 
-        CustomPage<Device> customPage = new CustomPage<>();
-        customPage.setItems(devicePage.getContent());
-        customPage.setTotalItems(devicePage.getTotalElements());
-        customPage.setTotalPages(devicePage.getTotalPages());
-        customPage.setCurrentPage(page);
-        customPage.setSize(size);
+        Map<String, DeviceListingVO> devices = deviceRepository.findListingBySerialNumbers(serialNumbers)
+                .stream()
+                .collect(Collectors.toMap(DeviceListingVO::serialNumber, Function.identity()));
+
+        return serialNumbers.stream().map(devices::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Keyset paged listing, every page is a seek from the position in the cursor,
+     * so deep pages cost the same as the first one and no count query is run.
+     * A blank cursor starts from the beginning in the given sort order.
+     */
+    public CursorPage<DeviceListingVO> getDevicesByCursor(String cursor, DeviceSortOrder sort, int size) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new CustomException("Page size must be between 1 and " + MAX_CURSOR_PAGE_SIZE, ErrorCode.Validation);
+        }
 
-        return customPage;
+        DeviceCursor after = cursor == null || cursor.isBlank() ? null : DeviceCursor.decode(cursor);
+        DeviceSortOrder order = after != null ? after.sort() : sort;
+        PageRequest pageRequest = PageRequest.of(0, size + 1);
+
+        List<DeviceListingVO> devices;
+        if (order == DeviceSortOrder.PURCHASE_DATE) {
+            devices = findPageByPurchaseDate(after, pageRequest);
+        } else {
+            devices = deviceRepository.findPageAfterSerialNumber(after == null ? "" : after.serialNumber(), pageRequest);
+        }
+
+        boolean hasNext = devices.size() > size;
+        List<DeviceListingVO> items = hasNext ? devices.subList(0, size) : devices;
+
+        CursorPage<DeviceListingVO> cursorPage = new CursorPage<>();
+        cursorPage.setItems(items);
+        cursorPage.setSize(size);
+        cursorPage.setNextCursor(hasNext ? DeviceCursor.after(items.get(size - 1), order).encode() : null);
+
+        return cursorPage;
+    }
+
+    /**
+     * Dated devices first, then the ones without a purchase date by serial number. When the dated
+     * devices run out mid page, the page is filled up from the undated ones.
+     */
+    private List<DeviceListingVO> findPageByPurchaseDate(DeviceCursor after, PageRequest pageRequest) {
+        if (after != null && after.purchaseDate() == null) {
+            return deviceRepository.findPageWithoutPurchaseDate(after.serialNumber(), pageRequest);
+        }
+
+        List<DeviceListingVO> devices = new ArrayList<>(after == null
+                ? deviceRepository.findFirstPageByPurchaseDate(pageRequest)
+                : deviceRepository.findPageAfterPurchaseDate(after.purchaseDate(), after.serialNumber(), pageRequest));
+        int missing = pageRequest.getPageSize() - devices.size();
+        if (missing > 0) {
+            devices.addAll(deviceRepository.findPageWithoutPurchaseDate("", PageRequest.of(0, missing)));
+        }
+        return devices;
     }
 }
\ No newline at end of file
@@ -1,35 +1,45 @@
 package bg.tuvarna.devicebackend.services;
 
+import bg.tuvarna.devicebackend.cache.PassportCache;
+import bg.tuvarna.devicebackend.cache.SerialLookupCache;
 import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
 import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
 import bg.tuvarna.devicebackend.models.dtos.PassportCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.PassportSerialLookupVO;
 import bg.tuvarna.devicebackend.models.dtos.PassportUpdateVO;
 import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.models.enums.CountMode;
 import bg.tuvarna.devicebackend.models.mappers.PassportMapper;
 import bg.tuvarna.devicebackend.repositories.PassportRepository;
 import bg.tuvarna.devicebackend.utils.CustomPage;
+import bg.tuvarna.devicebackend.utils.SerialPrefixTrie;
 import lombok.AllArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
 @Service
 @AllArgsConstructor
 public class PassportService {
     private final PassportRepository passportRepository;
+    private final PassportCache passportCache;
+    private final SerialLookupCache serialLookupCache;
+    private final RowCountEstimator rowCountEstimator;
 
     public Passport create(PassportCreateVO passportCreateVO) {
-        List<Passport> passports = passportRepository.findByFromSerialNumberBetween(passportCreateVO.serialPrefix(), passportCreateVO.fromSerialNumber(), passportCreateVO.toSerialNumber());
-        if (!passports.isEmpty()) {
+        validateRange(passportCreateVO.fromSerialNumber(), passportCreateVO.toSerialNumber());
+
+        if (passportRepository.existsOverlapping(passportCreateVO.serialPrefix(), passportCreateVO.fromSerialNumber(), passportCreateVO.toSerialNumber())) {
             throw new CustomException("Serial number already exists", ErrorCode.AlreadyExists);
         }
 
-        Passport passport = PassportMapper.toEntity(passportCreateVO);
+        Passport passport = save(PassportMapper.toEntity(passportCreateVO));
+        passportCache.put(passport);
 
-        return passportRepository.save(passport);
+        return passport;
     }
 
     public Passport update(Long id, PassportUpdateVO passportUpdateVO) {
@@ -43,14 +53,36 @@ public class PassportService {
         int fromSerialNumber = passportUpdateVO.fromSerialNumber() != null ? passportUpdateVO.fromSerialNumber() : passport.getFromSerialNumber();
         int toSerialNumber = passportUpdateVO.toSerialNumber() != null ? passportUpdateVO.toSerialNumber() : passport.getToSerialNumber();
 
-        List<Passport> passports = passportRepository.findByFromSerialNumberBetween(serialPrefix, fromSerialNumber, toSerialNumber);
-        if (!passports.isEmpty() && passports.stream().anyMatch(p -> !Objects.equals(p.getId(), passport.getId()))) {
+        validateRange(fromSerialNumber, toSerialNumber);
+
+        if (passportRepository.existsOverlappingOther(serialPrefix, fromSerialNumber, toSerialNumber, passport.getId())) {
             throw new CustomException("Serial number already exists", ErrorCode.AlreadyExists);
         }
 
         PassportMapper.updateEntity(passport, passportUpdateVO);
 
-        return passportRepository.save(passport);
+        Passport saved = save(passport);
+        passportCache.put(saved);
+
+        return saved;
+    }
+
+    private static void validateRange(int fromSerialNumber, int toSerialNumber) {
+        if (fromSerialNumber > toSerialNumber) {
+            throw new CustomException("From serial number must not be greater than to serial number", ErrorCode.Validation);
+        }
+    }
+
+    /**
+     * On PostgreSQL the passports_serial_range_excl exclusion constraint rejects overlapping ranges,
+     * this catches the writes that raced past the overlap check.
+     */
+    private Passport save(Passport passport) {
+        try {
+            return passportRepository.save(passport);
+        } catch (DataIntegrityViolationException e) {
+            throw new CustomException("Serial number already exists", ErrorCode.AlreadyExists);
+        }
     }
 
     public Passport findPassportById(Long id) {
@@ -58,8 +90,48 @@ public class PassportService {
     }
 
     public Passport findPassportBySerialId(String serialId) {
+        Passport passport = serialLookupCache.resolve(
+                serialId,
+                () -> passportCache.isEnabled()
+                        ? passportCache.findBySerialId(serialId)
+                        : findPassportInRepository(serialId)
+        );
+
+        if (passport == null) {
+            throw new CustomException("Passport not found for serial number: " + serialId, ErrorCode.Failed);
+        }
+        return passport;
+    }
+
+    /**
+     * Resolves many serials against a single passport snapshot, every serial gets its own result
+     * and serials without a matching passport are reported as not found instead of failing the batch.
+     */
+    public List<PassportSerialLookupVO> findPassportsBySerialIds(List<String> serialIds) {
+        SerialPrefixTrie trie = serialIndex();
+
+        Map<String, Passport> resolved = new HashMap<>();
+        for (String serialId : new HashSet<>(serialIds)) {
+            resolved.put(serialId, trie.find(serialId));
+        }
+
+        return serialIds.stream()
+                .map(serialId -> new PassportSerialLookupVO(serialId, resolved.get(serialId)))
+                .toList();
+    }
+
+    /**
+     * One consistent view of all passports for resolving serials in bulk.
+     */
+    public SerialPrefixTrie serialIndex() {
+        return passportCache.isEnabled()
+                ? passportCache.snapshot()
+                : SerialPrefixTrie.of(passportRepository.findAll());
+    }
+
+    private Passport findPassportInRepository(String serialId) {
         List<Passport> passports = getPassportsBySerialPrefix(serialId);
-        
+
         for (Passport passport : passports) {
             int serialNumber;
             try {
@@ -72,20 +144,25 @@ public class PassportService {
             }
         }
 
-        throw new CustomException("Passport not found for serial number: " + serialId, ErrorCode.Failed);
+        return null;
     }
 
-    public CustomPage<Passport> getPassports(int page, int size) {
-        Page<Passport> passports = passportRepository.findAll(PageRequest.of(page - 1, size));
+    /**
+     * Offset paged listing, the count modes work as in {@link DeviceService#getDevices(String, int, int, CountMode)}.
+     */
+    public CustomPage<Passport> getPassports(int page, int size, CountMode countMode) {
+        Pageable pageable = PageRequest.of(page - 1, size);
 
-        CustomPage<Passport> customPage = new CustomPage<>();
-        customPage.setTotalPages(passports.getTotalPages());
-        customPage.setCurrentPage(passports.getNumber() + 1);
-        customPage.setSize(passports.getSize());
-        customPage.setTotalItems(passports.getTotalElements());
-        customPage.setItems(passports.getContent());
+        if (countMode == CountMode.EXACT) {
+            return CustomPage.of(passportRepository.findAll(pageable));
+        }
+
+        Long totalItems = null;
+        if (countMode == CountMode.ESTIMATED) {
+            totalItems = rowCountEstimator.estimate("passports").orElseGet(passportRepository::count);
+        }
 
-        return customPage;
+        return CustomPage.of(passportRepository.findAllBy(pageable), totalItems);
     }
 
     public List<Passport> getPassportsBySerialPrefix(String serialId) {
@@ -98,5 +175,6 @@ public class PassportService {
         } catch (RuntimeException e) {
             throw new CustomException("Can't delete passport", ErrorCode.Failed);
         }
+        passportCache.evict(id);
     }
 }
\ No newline at end of file
@@ -1,18 +1,58 @@
 package bg.tuvarna.devicebackend.services;
 
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
+import bg.tuvarna.devicebackend.models.dtos.RenovationBulkItemResult;
+import bg.tuvarna.devicebackend.models.dtos.RenovationBulkReport;
 import bg.tuvarna.devicebackend.models.dtos.RenovationCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.RenovationHistoryVO;
 import bg.tuvarna.devicebackend.models.entities.Device;
 import bg.tuvarna.devicebackend.models.entities.Renovation;
+import bg.tuvarna.devicebackend.models.enums.DeviceSortOrder;
 import bg.tuvarna.devicebackend.repositories.RenovationRepository;
-import lombok.AllArgsConstructor;
+import bg.tuvarna.devicebackend.utils.CursorPage;
+import bg.tuvarna.devicebackend.utils.RenovationCursor;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
-@AllArgsConstructor
 public class RenovationService {
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    private static final LocalDate EARLIEST_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate LATEST_DATE = LocalDate.of(9999, 12, 31);
+
     private final RenovationRepository renovationRepository;
     private final DeviceService deviceService;
+    private final AnalyticsService analyticsService;
+    private final Validator validator;
+    private final int maxBulkItems;
+
+    public RenovationService(
+            RenovationRepository renovationRepository,
+            DeviceService deviceService,
+            AnalyticsService analyticsService,
+            Validator validator,
+            @Value("${renovations.bulk.max-items:1000}") int maxBulkItems
+    ) {
+        this.renovationRepository = renovationRepository;
+        this.deviceService = deviceService;
+        this.analyticsService = analyticsService;
+        this.validator = validator;
+        this.maxBulkItems = maxBulkItems;
+    }
 
+    @Transactional
     public Renovation save(RenovationCreateVO vo) {
         Device device = deviceService.isDeviceExists(vo.deviceSerialNumber());
 
@@ -21,6 +61,106 @@ public class RenovationService {
         renovation.setDescription(vo.description());
         renovation.setRenovationDate(vo.renovationDate());
 
+        analyticsService.recordRenovations(List.of(renovation));
         return renovationRepository.save(renovation);
     }
-}
\ No newline at end of file
+
+    /**
+     * Saves a batch of renovations, each item is validated on its own and reported back by its index.
+     * All the serial numbers are checked with one query and the valid renovations are inserted in
+     * JDBC batches ({@code hibernate.jdbc.batch_size}), invalid items don't stop the others from being saved.
+     */
+    @Transactional
+    public RenovationBulkReport saveAll(List<RenovationCreateVO> items) {
+        if (items.size() > maxBulkItems) {
+            throw new CustomException("Too many renovations", ErrorCode.Validation, String.valueOf(maxBulkItems));
+        }
+
+        Set<String> serialNumbers = items.stream()
+                .filter(Objects::nonNull)
+                .map(RenovationCreateVO::deviceSerialNumber)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> existing = serialNumbers.isEmpty() ? Set.of() : deviceService.findExistingSerialNumbers(serialNumbers);
+
+        RenovationBulkItemResult[] results = new RenovationBulkItemResult[items.size()];
+        List<Integer> indexes = new ArrayList<>();
+        List<Renovation> renovations = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            RenovationCreateVO vo = items.get(i);
+            String error = validate(vo, existing);
+            if (error != null) {
+                results[i] = RenovationBulkItemResult.rejected(i, vo != null ? vo.deviceSerialNumber() : null, error);
+                continue;
+            }
+
+            Renovation renovation = new Renovation();
+            renovation.setDevice(deviceService.getDeviceReference(vo.deviceSerialNumber()));
+            renovation.setDescription(vo.description());
+            renovation.setRenovationDate(vo.renovationDate());
+            renovations.add(renovation);
+            indexes.add(i);
+        }
+
+        analyticsService.recordRenovations(renovations);
+        List<Renovation> saved = renovationRepository.saveAll(renovations);
+        renovationRepository.flush();
+
+        for (int i = 0; i < saved.size(); i++) {
+            int index = indexes.get(i);
+            results[index] = RenovationBulkItemResult.accepted(index, items.get(index).deviceSerialNumber(), saved.get(i).getId());
+        }
+
+        return new RenovationBulkReport(List.of(results));
+    }
+
+    /**
+     * Renovation history of the device, newest first, keyset paged like
+     * {@link DeviceService#getDevicesByCursor(String, DeviceSortOrder, int)}.
+     * Both ends of the date range are inclusive and optional.
+     */
+    public CursorPage<RenovationHistoryVO> getHistory(String serialNumber, String cursor, LocalDate from, LocalDate to, int size) {
+        if (size < 1 || size > MAX_HISTORY_PAGE_SIZE) {
+            throw new CustomException("Page size must be between 1 and " + MAX_HISTORY_PAGE_SIZE, ErrorCode.Validation);
+        }
+
+        RenovationCursor after = cursor == null || cursor.isBlank() ? null : RenovationCursor.decode(cursor);
+        LocalDate fromDate = from != null ? from : EARLIEST_DATE;
+        LocalDate toDate = to != null ? to : LATEST_DATE;
+        PageRequest pageRequest = PageRequest.of(0, size + 1);
+
+        List<RenovationHistoryVO> renovations = after == null
+                ? renovationRepository.findHistory(serialNumber, fromDate, toDate, pageRequest)
+                : renovationRepository.findHistoryBefore(serialNumber, fromDate, toDate, after.renovationDate(), after.id(), pageRequest);
+
+        if (renovations.isEmpty() && after == null) {
+            deviceService.checkRegistered(serialNumber);
+        }
+
+        boolean hasNext = renovations.size() > size;
+        List<RenovationHistoryVO> items = hasNext ? renovations.subList(0, size) : renovations;
+
+        CursorPage<RenovationHistoryVO> cursorPage = new CursorPage<>();
+        cursorPage.setItems(items);
+        cursorPage.setSize(size);
+        cursorPage.setNextCursor(hasNext ? RenovationCursor.after(items.get(size - 1)).encode() : null);
+
+        return cursorPage;
+    }
+
+    private String validate(RenovationCreateVO vo, Set<String> existingSerialNumbers) {
+        if (vo == null) {
+            return "Renovation is required";
+        }
+
+        Set<ConstraintViolation<RenovationCreateVO>> violations = validator.validate(vo);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+
+        if (!existingSerialNumbers.contains(vo.deviceSerialNumber())) {
+            return "Device not registered";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,33 @@
+package bg.tuvarna.devicebackend.services;
+
+import bg.tuvarna.devicebackend.config.DatabasePlatform;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+@Service
+@AllArgsConstructor
+public class RowCountEstimator {
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+
+    /**
+     * Row count of a table as estimated by the PostgreSQL planner statistics, empty on other
+     * databases and for tables that were never analyzed.
+     */
+    public Optional<Long> estimate(String table) {
+        if (!databasePlatform.isPostgres()) {
+            return Optional.empty();
+        }
+
+        List<Long> estimates = jdbcTemplate.queryForList(
+                "select reltuples::bigint from pg_class where oid = to_regclass(?)",
+                Long.class,
+                table
+        );
+        return estimates.stream().filter(estimate -> estimate >= 0).findFirst();
+    }
+}
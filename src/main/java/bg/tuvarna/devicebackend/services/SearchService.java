@@ -0,0 +1,62 @@
+package bg.tuvarna.devicebackend.services;
+
+import bg.tuvarna.devicebackend.repositories.DeviceRepository;
+import bg.tuvarna.devicebackend.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+/**
+ * Ranked admin search over the search documents maintained in PostgreSQL (see schema-postgresql.sql).
+ * With {@code search.mode=like}, used by the H2 test profile, callers keep their LIKE queries.
+ */
+@Service
+public class SearchService {
+    private final DeviceRepository deviceRepository;
+    private final UserRepository userRepository;
+    private final boolean fullText;
+
+    public SearchService(
+            DeviceRepository deviceRepository,
+            UserRepository userRepository,
+            @Value("${search.mode:like}") String mode
+    ) {
+        this.deviceRepository = deviceRepository;
+        this.userRepository = userRepository;
+        this.fullText = "fulltext".equalsIgnoreCase(mode);
+    }
+
+    public boolean isFullText() {
+        return fullText;
+    }
+
+    /**
+     * @return serial numbers of the matching devices, best match first
+     */
+    public Page<String> searchDevices(String searchBy, Pageable pageable) {
+        return deviceRepository.searchSerialNumbers(searchBy, pageable);
+    }
+
+    /**
+     * Same as {@link #searchDevices(String, Pageable)} without counting all matches.
+     */
+    public Slice<String> searchDeviceSlice(String searchBy, Pageable pageable) {
+        return deviceRepository.searchSerialNumberSlice(searchBy, pageable);
+    }
+
+    /**
+     * @return ids of the matching non admin users, best match first
+     */
+    public Page<Long> searchUsers(String searchBy, Pageable pageable) {
+        return userRepository.searchIds(searchBy, pageable);
+    }
+
+    /**
+     * Same as {@link #searchUsers(String, Pageable)} without counting all matches.
+     */
+    public Slice<Long> searchUserSlice(String searchBy, Pageable pageable) {
+        return userRepository.searchIdSlice(searchBy, pageable);
+    }
+}
@@ -1,43 +1,59 @@
 package bg.tuvarna.devicebackend.services;
 
+import bg.tuvarna.devicebackend.cache.UserProfileCache;
 import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
 import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
 import bg.tuvarna.devicebackend.models.dtos.ChangePasswordVO;
+import bg.tuvarna.devicebackend.models.dtos.UserContact;
 import bg.tuvarna.devicebackend.models.dtos.UserCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.UserCredentials;
 import bg.tuvarna.devicebackend.models.dtos.UserListing;
 import bg.tuvarna.devicebackend.models.dtos.UserUpdateVO;
+import bg.tuvarna.devicebackend.models.dtos.UserVO;
+import bg.tuvarna.devicebackend.models.entities.Device;
 import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.models.enums.CountMode;
 import bg.tuvarna.devicebackend.models.enums.UserRole;
 import bg.tuvarna.devicebackend.repositories.UserRepository;
 import bg.tuvarna.devicebackend.utils.CustomPage;
 import lombok.AllArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 public class UserService {
+    private static final Set<String> EMAIL_CONSTRAINTS = Set.of("users_email_key", "users_email_lower_key");
+    private static final Set<String> PHONE_CONSTRAINTS = Set.of("users_phone_key");
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final DeviceService deviceService;
+    private final SearchService searchService;
+    private final RowCountEstimator rowCountEstimator;
+    private final UserProfileCache userProfileCache;
 
     public void register(UserCreateVO userCreateVO) {
-        if (isEmailTaken(userCreateVO.email())) {
-            throw new CustomException("Email already taken", ErrorCode.AlreadyExists);
-        }
-        if (isPhoneTaken(userCreateVO.phone())) {
-            throw new CustomException("Phone already taken", ErrorCode.AlreadyExists);
-        }
+        checkContactsAvailable(userCreateVO.email(), userCreateVO.phone(), null);
 
         User user = new User(userCreateVO);
 
         user.setPassword(passwordEncoder.encode(userCreateVO.password()));
-        user = userRepository.saveAndFlush(user);
+        user = save(user);
 
         if (
                 userCreateVO.deviceSerialNumber() == null || userCreateVO.deviceSerialNumber().isBlank()
@@ -47,61 +63,153 @@ public class UserService {
         }
 
         try {
-            deviceService.alreadyExist(userCreateVO.deviceSerialNumber());
             deviceService.registerDevice(userCreateVO.deviceSerialNumber(), userCreateVO.purchaseDate(), user);
         } catch (CustomException e) {
             userRepository.delete(user);
+            userProfileCache.evict(user.getId());
             throw e;
         }
     }
 
-    public boolean isEmailTaken(String email) {
-        Optional<User> user = userRepository.findByEmailOrPhone(email);
-        return user.isPresent();
+    /**
+     * Fails when another user already has the email (in any case) or the phone. This only gives the
+     * early, friendly error, concurrent registrations are decided by the unique indexes in {@link #save}.
+     */
+    private void checkContactsAvailable(String email, String phone, Long ownId) {
+        List<UserContact> taken = userRepository.findContacts(email, phone)
+                .stream()
+                .filter(contact -> !contact.id().equals(ownId))
+                .toList();
+
+        if (taken.stream().anyMatch(contact -> contact.email() != null && contact.email().equalsIgnoreCase(email))) {
+            throw new CustomException("Email already taken", ErrorCode.AlreadyExists);
+        }
+        if (taken.stream().anyMatch(contact -> Objects.equals(contact.phone(), phone))) {
+            throw new CustomException("Phone already taken", ErrorCode.AlreadyExists);
+        }
+    }
+
+    private User save(User user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            String constraint = violatedConstraint(e);
+            if (EMAIL_CONSTRAINTS.contains(constraint)) {
+                throw new CustomException("Email already taken", ErrorCode.AlreadyExists);
+            }
+            if (PHONE_CONSTRAINTS.contains(constraint)) {
+                throw new CustomException("Phone already taken", ErrorCode.AlreadyExists);
+            }
+            throw e;
+        }
     }
 
-    public boolean isPhoneTaken(String phone) {
-        User user = userRepository.getByPhone(phone);
-        return user != null;
+    /**
+     * The name of the unique index the write ran into, lower-cased. H2 reports the backing index of the
+     * constraint as SCHEMA.NAME_INDEX_n, PostgreSQL the bare name.
+     */
+    private static String violatedConstraint(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                String name = violation.getConstraintName().replace("\"", "").toLowerCase(Locale.ROOT);
+                return name.substring(name.lastIndexOf('.') + 1).replaceFirst("_index_\\d+$", "");
+            }
+        }
+        return "";
     }
 
     public User getUserById(Long id) {
         return userRepository.findById(id).orElseThrow(() -> new CustomException("User not found", ErrorCode.EntityNotFound));
     }
 
-    public User getUserByUsername(String username) {
-        return userRepository.findByEmailOrPhone(username).orElseThrow(() -> new CustomException("User not found", ErrorCode.EntityNotFound));
+    /**
+     * The profile view of the user, served from the {@link UserProfileCache}.
+     */
+    public UserVO getProfile(Long id) {
+        UserVO profile = userProfileCache.get(id);
+        if (profile == null) {
+            throw new CustomException("User not found", ErrorCode.EntityNotFound);
+        }
+        return profile;
+    }
+
+    /**
+     * A reference to the user for associations, the row is only read if the reference is used for more than its id.
+     */
+    public User getUserReference(Long id) {
+        return userRepository.getReferenceById(id);
+    }
+
+    public UserCredentials getCredentialsByUsername(String username) {
+        return userRepository.findCredentials(username).orElseThrow(() -> new CustomException("User not found", ErrorCode.EntityNotFound));
     }
 
-    public CustomPage<UserListing> getUsers(String searchBy, int page, int size) {
-        Page<User> userPage;
-        if (searchBy == null) {
-            userPage = userRepository.getAllUsers(PageRequest.of(page - 1, size));
+    /**
+     * Offset paged listing, the count modes work as in {@link DeviceService#getDevices(String, int, int, CountMode)}.
+     * The page is taken over user ids only, then the users and their devices matching the search
+     * are loaded for just those ids. The estimated total is for the whole users table, so unlike the
+     * exact count it includes the admins, the few extra rows are not worth a count query.
+     */
+    public CustomPage<UserListing> getUsers(String searchBy, int page, int size, CountMode countMode) {
+        Pageable pageable = PageRequest.of(page - 1, size);
+
+        CustomPage<Long> idPage;
+        if (countMode == CountMode.EXACT) {
+            Page<Long> ids;
+            if (searchBy == null) {
+                ids = userRepository.findUserIds(pageable);
+            } else if (searchService.isFullText()) {
+                ids = searchService.searchUsers(searchBy, pageable);
+            } else {
+                ids = userRepository.searchUserIds(searchBy, pageable);
+            }
+            idPage = CustomPage.of(ids);
         } else {
-            userPage = userRepository.searchBy(searchBy, PageRequest.of(page - 1, size));
+            Slice<Long> ids;
+            if (searchBy == null) {
+                ids = userRepository.findUserIdSlice(pageable);
+            } else if (searchService.isFullText()) {
+                ids = searchService.searchUserSlice(searchBy, pageable);
+            } else {
+                ids = userRepository.searchUserIdSlice(searchBy, pageable);
+            }
+
+            Long totalItems = null;
+            if (countMode == CountMode.ESTIMATED && searchBy == null) {
+                totalItems = rowCountEstimator.estimate("users")
+                        .orElseGet(() -> userRepository.countByRoleNot(UserRole.ADMIN));
+            }
+            idPage = CustomPage.of(ids, totalItems);
         }
 
         CustomPage<UserListing> customPage = new CustomPage<>();
-        customPage.setTotalPages(userPage.getTotalPages());
-        customPage.setCurrentPage(userPage.getNumber() + 1);
-        customPage.setSize(userPage.getSize());
-        customPage.setTotalItems(userPage.getTotalElements());
+        customPage.setTotalPages(idPage.getTotalPages());
+        customPage.setCurrentPage(idPage.getCurrentPage());
+        customPage.setSize(idPage.getSize());
+        customPage.setTotalItems(idPage.getTotalItems());
+        customPage.setHasNext(idPage.isHasNext());
+        customPage.setItems(findListings(idPage.getItems(), searchBy));
 
-        customPage.setItems(userPage
+        return customPage;
+    }
+
+    private List<UserListing> findListings(List<Long> ids, String searchBy) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, User> users = userRepository.findAllById(ids)
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, List<Device>> devices = deviceService.findDevicesOfUsers(ids, searchBy)
                 .stream()
-                .peek(user -> {
-                            if (searchBy != null) {
-                                user.setDevices(user.getDevices().stream().filter(
-                                        device -> device.getSerialNumber().contains(searchBy)
-                                ).collect(Collectors.toList()));
-                            }
-                        }
-                )
-                .map(UserListing::new)
-                .toList()
-        );
+                .collect(Collectors.groupingBy(device -> device.getUser().getId()));
 
-        return customPage;
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(user -> new UserListing(user, devices.getOrDefault(user.getId(), List.of())))
+                .toList();
     }
 
     public User updateUser(Long id, UserUpdateVO userUpdateVO) {
@@ -111,20 +219,16 @@ public class UserService {
             throw new CustomException("Admin password can't be changed", ErrorCode.Validation);
         }
 
-        if (isEmailTaken(userUpdateVO.email()) && !user.getEmail().equals(userUpdateVO.email())) {
-            throw new CustomException("Email already taken", ErrorCode.AlreadyExists);
-        }
-
-        if (isPhoneTaken(userUpdateVO.phone()) && !user.getPhone().equals(userUpdateVO.phone())) {
-            throw new CustomException("Phone already taken", ErrorCode.AlreadyExists);
-        }
+        checkContactsAvailable(userUpdateVO.email(), userUpdateVO.phone(), user.getId());
 
         user.setFullName(userUpdateVO.fullName());
         user.setAddress(userUpdateVO.address());
         user.setPhone(userUpdateVO.phone());
         user.setEmail(userUpdateVO.email());
 
-        return userRepository.save(user);
+        User saved = save(user);
+        userProfileCache.evict(id);
+        return saved;
     }
 
     public void updatePassword(Long id, ChangePasswordVO passwordVO) {
@@ -135,6 +239,7 @@ public class UserService {
         if (passwordEncoder.matches(passwordVO.oldPassword(), user.getPassword())) {
             user.setPassword(passwordEncoder.encode(passwordVO.newPassword()));
             userRepository.save(user);
+            userProfileCache.evict(id);
         } else {
             throw new CustomException("Old password didn't match", ErrorCode.Validation);
         }
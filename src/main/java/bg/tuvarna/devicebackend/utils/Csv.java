@@ -0,0 +1,31 @@
+package bg.tuvarna.devicebackend.utils;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * RFC 4180 helpers, values with a separator, quote or line break are quoted and quotes are doubled.
+ * Values a spreadsheet would run as a formula get a leading apostrophe, so an exported phone or
+ * name can't execute anything when the file is opened.
+ */
+public final class Csv {
+    private Csv() {
+    }
+
+    public static String line(Object... values) {
+        return Arrays.stream(values)
+                .map(value -> escape(Objects.toString(value, "")))
+                .collect(Collectors.joining(",", "", "\r\n"));
+    }
+
+    public static String escape(String value) {
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,95 @@
+package bg.tuvarna.devicebackend.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 records one at a time so large files never have to be held in memory.
+ * Quoted values may contain separators, doubled quotes and line breaks.
+ */
+public class CsvReader implements Closeable {
+    private final PushbackReader reader;
+    private long line = 1;
+    private long recordLine;
+
+    public CsvReader(Reader reader) {
+        this.reader = new PushbackReader(reader, 1);
+    }
+
+    /**
+     * @return the values of the next record or null at the end of the input
+     */
+    public List<String> readRecord() throws IOException {
+        int next = reader.read();
+        if (next < 0) {
+            return null;
+        }
+
+        recordLine = line;
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+
+        while (next >= 0) {
+            char c = (char) next;
+            if (quoted) {
+                if (c == '"') {
+                    int following = reader.read();
+                    if (following == '"') {
+                        value.append('"');
+                    } else {
+                        quoted = false;
+                        unread(following);
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    int following = reader.read();
+                    if (following != '\n') {
+                        unread(following);
+                    }
+                }
+                line++;
+                break;
+            } else {
+                value.append(c);
+            }
+            next = reader.read();
+        }
+
+        values.add(value.toString());
+        return values;
+    }
+
+    /**
+     * @return the line number where the last returned record started
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void unread(int c) throws IOException {
+        if (c >= 0) {
+            reader.unread(c);
+        }
+    }
+}
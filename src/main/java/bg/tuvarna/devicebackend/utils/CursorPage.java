@@ -0,0 +1,20 @@
+package bg.tuvarna.devicebackend.utils;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Page of a keyset paged listing, the next page is requested with {@code nextCursor},
+ * which is null on the last page.
+ */
+@NoArgsConstructor
+@Setter
+@Getter
+public class CursorPage<T> {
+    private int size;
+    private String nextCursor;
+    private List<T> items;
+}
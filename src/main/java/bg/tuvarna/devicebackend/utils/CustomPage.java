@@ -3,6 +3,8 @@ package bg.tuvarna.devicebackend.utils;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -11,8 +13,31 @@ import java.util.List;
 @Getter
 public class CustomPage<T> {
     private int currentPage;
-    private int totalPages;
+    private Integer totalPages;
     private int size;
-    private long totalItems;
+    private Long totalItems;
+    private boolean hasNext;
     private List<T> items;
-}
\ No newline at end of file
+
+    public static <T> CustomPage<T> of(Page<T> page) {
+        return of(page, page.getTotalElements());
+    }
+
+    /**
+     * @param totalItems exact or estimated total, null leaves the totals out and clients rely on {@code hasNext}
+     */
+    public static <T> CustomPage<T> of(Slice<T> slice, Long totalItems) {
+        CustomPage<T> customPage = new CustomPage<>();
+        customPage.setCurrentPage(slice.getNumber() + 1);
+        customPage.setSize(slice.getSize());
+        customPage.setHasNext(slice.hasNext());
+        customPage.setItems(slice.getContent());
+
+        if (totalItems != null) {
+            customPage.setTotalItems(totalItems);
+            customPage.setTotalPages(slice.getSize() == 0 ? 1 : (int) Math.ceil((double) totalItems / slice.getSize()));
+        }
+
+        return customPage;
+    }
+}
@@ -0,0 +1,42 @@
+package bg.tuvarna.devicebackend.utils;
+
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
+import bg.tuvarna.devicebackend.models.dtos.DeviceListingVO;
+import bg.tuvarna.devicebackend.models.enums.DeviceSortOrder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Position of the last device returned by a keyset paged listing, handed to clients as an
+ * opaque token. In the purchase date order a cursor without a date points into the devices
+ * without a purchase date, which come after all the dated ones.
+ */
+public record DeviceCursor(DeviceSortOrder sort, LocalDate purchaseDate, String serialNumber) {
+    private static final String SEPARATOR = "|";
+
+    public static DeviceCursor after(DeviceListingVO device, DeviceSortOrder sort) {
+        return new DeviceCursor(sort, device.purchaseDate(), device.serialNumber());
+    }
+
+    public String encode() {
+        String value = sort.name() + SEPARATOR + (purchaseDate != null ? purchaseDate : "") + SEPARATOR + serialNumber;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static DeviceCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = value.split("\\|", 3);
+
+            DeviceSortOrder sort = DeviceSortOrder.valueOf(parts[0]);
+            LocalDate purchaseDate = parts[1].isEmpty() ? null : LocalDate.parse(parts[1]);
+
+            return new DeviceCursor(sort, purchaseDate, parts[2]);
+        } catch (RuntimeException e) {
+            throw new CustomException("Invalid cursor", ErrorCode.Validation);
+        }
+    }
+}
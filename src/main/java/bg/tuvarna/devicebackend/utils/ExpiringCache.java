@@ -0,0 +1,121 @@
+package bg.tuvarna.devicebackend.utils;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Small bounded cache whose entries expire after a time to live.
+ * When full the least recently used entry is dropped, expired entries are removed when they are read.
+ * The entries can be spread over stripes with a lock each, so concurrent readers of different keys
+ * don't wait on each other.
+ */
+public class ExpiringCache<K, V> {
+    private final Duration ttl;
+    private final LongSupplier nanoClock;
+    private final Stripe<K, V>[] stripes;
+
+    public ExpiringCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, 1);
+    }
+
+    public ExpiringCache(int maxSize, Duration ttl, LongSupplier nanoClock) {
+        this(maxSize, ttl, 1, nanoClock);
+    }
+
+    public ExpiringCache(int maxSize, Duration ttl, int stripes) {
+        this(maxSize, ttl, stripes, System::nanoTime);
+    }
+
+    /**
+     * @param stripes number of independently locked parts, each holds an equal share of {@code maxSize}
+     *                and evicts on its own
+     */
+    @SuppressWarnings("unchecked")
+    public ExpiringCache(int maxSize, Duration ttl, int stripes, LongSupplier nanoClock) {
+        this.ttl = ttl;
+        this.nanoClock = nanoClock;
+        this.stripes = new Stripe[stripes];
+        int stripeSize = Math.max(1, (maxSize + stripes - 1) / stripes);
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe<>(stripeSize);
+        }
+    }
+
+    public V get(K key) {
+        Stripe<K, V> stripe = stripeOf(key);
+        synchronized (stripe) {
+            Timed<V> entry = stripe.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (nanoClock.getAsLong() - entry.expiresAt() >= 0) {
+                stripe.remove(key);
+                return null;
+            }
+            return entry.value();
+        }
+    }
+
+    public void put(K key, V value) {
+        put(key, value, ttl);
+    }
+
+    public void put(K key, V value, Duration timeToLive) {
+        Stripe<K, V> stripe = stripeOf(key);
+        synchronized (stripe) {
+            stripe.put(key, new Timed<>(value, nanoClock.getAsLong() + timeToLive.toNanos()));
+        }
+    }
+
+    public void invalidate(K key) {
+        Stripe<K, V> stripe = stripeOf(key);
+        synchronized (stripe) {
+            stripe.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe<K, V> stripeOf(K key) {
+        int hash = key.hashCode();
+        return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+    }
+
+    /**
+     * Access ordered, so reads keep an entry from being the next one evicted.
+     */
+    private static final class Stripe<K, V> extends LinkedHashMap<K, Timed<V>> {
+        private final int maxSize;
+
+        private Stripe(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Timed<V>> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    private record Timed<V>(V value, long expiresAt) {
+    }
+}
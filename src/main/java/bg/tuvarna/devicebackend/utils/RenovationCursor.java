@@ -0,0 +1,37 @@
+package bg.tuvarna.devicebackend.utils;
+
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
+import bg.tuvarna.devicebackend.models.dtos.RenovationHistoryVO;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Position of the last renovation returned by the history of a device, newest first,
+ * handed to clients as an opaque token.
+ */
+public record RenovationCursor(LocalDate renovationDate, Long id) {
+    private static final String SEPARATOR = "|";
+
+    public static RenovationCursor after(RenovationHistoryVO renovation) {
+        return new RenovationCursor(renovation.renovationDate(), renovation.id());
+    }
+
+    public String encode() {
+        String value = renovationDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RenovationCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = value.split("\\|", 2);
+
+            return new RenovationCursor(LocalDate.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            throw new CustomException("Invalid cursor", ErrorCode.Validation);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package bg.tuvarna.devicebackend.utils;
+
+import bg.tuvarna.devicebackend.models.entities.Passport;
+
+import java.util.*;
+
+/**
+ * Immutable lookup structure over passport serial ranges.
+ * Passports are stored in a character trie keyed by serial prefix, every node that ends a prefix
+ * keeps the ranges of that prefix sorted by {@code fromSerialNumber}. Resolving a serial walks it
+ * once and binary searches the ranges of every matching prefix, the longest matching prefix wins.
+ * Changes never mutate an existing instance, {@link #with(Passport)} and {@link #without(Long)}
+ * return a new trie so readers can keep using the old one while it is being replaced.
+ */
+public final class SerialPrefixTrie {
+    private static final SerialPrefixTrie EMPTY = new SerialPrefixTrie(Map.of());
+
+    private final Map<Long, Passport> passports;
+    private final Node root = new Node();
+
+    private SerialPrefixTrie(Map<Long, Passport> passports) {
+        this.passports = passports;
+
+        Map<Node, List<Passport>> ranges = new HashMap<>();
+        for (Passport passport : passports.values()) {
+            if (passport.getSerialPrefix() == null) {
+                continue;
+            }
+
+            Node node = root;
+            for (char c : passport.getSerialPrefix().toCharArray()) {
+                node = node.children.computeIfAbsent(c, k -> new Node());
+            }
+            ranges.computeIfAbsent(node, k -> new ArrayList<>()).add(passport);
+        }
+
+        ranges.forEach((node, list) -> {
+            list.sort(Comparator.comparingInt(Passport::getFromSerialNumber));
+            node.ranges = list.toArray(new Passport[0]);
+        });
+    }
+
+    public static SerialPrefixTrie empty() {
+        return EMPTY;
+    }
+
+    public static SerialPrefixTrie of(Collection<Passport> passports) {
+        Map<Long, Passport> byId = new HashMap<>();
+        for (Passport passport : passports) {
+            byId.put(passport.getId(), passport);
+        }
+        return new SerialPrefixTrie(Collections.unmodifiableMap(byId));
+    }
+
+    public SerialPrefixTrie with(Passport passport) {
+        Map<Long, Passport> byId = new HashMap<>(passports);
+        byId.put(passport.getId(), passport);
+        return new SerialPrefixTrie(Collections.unmodifiableMap(byId));
+    }
+
+    public SerialPrefixTrie without(Long id) {
+        if (!passports.containsKey(id)) {
+            return this;
+        }
+        Map<Long, Passport> byId = new HashMap<>(passports);
+        byId.remove(id);
+        return new SerialPrefixTrie(Collections.unmodifiableMap(byId));
+    }
+
+    public Collection<Passport> passports() {
+        return passports.values();
+    }
+
+    public int size() {
+        return passports.size();
+    }
+
+    /**
+     * @return the passport whose prefix and range cover the serial, or null when there is none
+     */
+    public Passport find(String serialId) {
+        if (serialId == null) {
+            return null;
+        }
+
+        Passport match = root.find(serialId, 0);
+        Node node = root;
+        for (int i = 0; i < serialId.length(); i++) {
+            node = node.children.get(serialId.charAt(i));
+            if (node == null) {
+                break;
+            }
+
+            Passport passport = node.find(serialId, i + 1);
+            if (passport != null) {
+                match = passport;
+            }
+        }
+        return match;
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private Passport[] ranges = new Passport[0];
+
+        private Passport find(String serialId, int offset) {
+            if (ranges.length == 0 || offset >= serialId.length()) {
+                return null;
+            }
+
+            int serialNumber;
+            try {
+                serialNumber = Integer.parseInt(serialId, offset, serialId.length(), 10);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+
+            int low = 0;
+            int high = ranges.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (ranges[mid].getFromSerialNumber() <= serialNumber) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+
+            if (high >= 0 && serialNumber <= ranges[high].getToSerialNumber()) {
+                return ranges[high];
+            }
+            return null;
+        }
+    }
+}
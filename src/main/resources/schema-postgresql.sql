@@ -0,0 +1,138 @@
+-- PostgreSQL specific schema objects that Hibernate cannot describe.
+-- Runs on every start after Hibernate has updated the schema (spring.sql.init.* in the dev and prod
+-- profiles), so every statement must be idempotent.
+
+-- Passport ranges: one int4range per passport and an exclusion constraint, so two passports with the
+-- same prefix can never hold overlapping ranges, even when two creates race past the service check.
+-- Ranges saved before the check looked at nested ranges may already overlap, then startup stops and
+-- names the conflicting passport ids so they can be fixed by hand.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE passports
+    ADD COLUMN IF NOT EXISTS serial_range int4range
+        GENERATED ALWAYS AS (int4range(from_serial_number, to_serial_number, '[]')) STORED;
+
+DO '
+DECLARE
+    overlapping text;
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ''passports_serial_range_excl'') THEN
+        SELECT string_agg(a.id || ''/'' || b.id, '', '' ORDER BY a.id, b.id)
+        INTO overlapping
+        FROM passports a
+                 JOIN passports b ON b.serial_prefix = a.serial_prefix AND b.id > a.id
+            AND b.serial_range && a.serial_range;
+        IF overlapping IS NOT NULL THEN
+            RAISE EXCEPTION ''passports_serial_range_excl not added, passports with overlapping serial ranges (id pairs): %'', overlapping;
+        END IF;
+        ALTER TABLE passports
+            ADD CONSTRAINT passports_serial_range_excl
+                EXCLUDE USING gist (serial_prefix WITH =, serial_range WITH &&);
+    END IF;
+END';
+
+-- Admin search: a lower-cased search document per user and per device, with a trigram index for
+-- substring matches and a tsvector for ranking. The user document is a generated column, the device
+-- document also holds owner and passport fields and is kept up to date by triggers.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE users
+    ADD COLUMN IF NOT EXISTS search_document text
+        GENERATED ALWAYS AS (lower(coalesce(full_name, '') || ' ' || coalesce(address, '') || ' ' ||
+                                   coalesce(email, '') || ' ' || coalesce(phone, ''))) STORED;
+
+ALTER TABLE users
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+        GENERATED ALWAYS AS (to_tsvector('simple', coalesce(full_name, '') || ' ' || coalesce(address, '') || ' ' ||
+                                                   coalesce(email, '') || ' ' || coalesce(phone, ''))) STORED;
+
+ALTER TABLE devices ADD COLUMN IF NOT EXISTS search_document text;
+ALTER TABLE devices ADD COLUMN IF NOT EXISTS search_vector tsvector;
+
+CREATE OR REPLACE FUNCTION devices_search_document() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    SELECT lower(concat_ws('' '', NEW.serial_number, u.full_name, u.address, u.email, u.phone, p.name, p.model))
+    INTO NEW.search_document
+    FROM (SELECT 1) AS one
+             LEFT JOIN users u ON u.id = NEW.user_id
+             LEFT JOIN passports p ON p.id = NEW.passport_id;
+    NEW.search_vector := to_tsvector(''simple'', NEW.search_document);
+    RETURN NEW;
+END';
+
+DROP TRIGGER IF EXISTS devices_search_document ON devices;
+CREATE TRIGGER devices_search_document
+    BEFORE INSERT OR UPDATE OF serial_number, user_id, passport_id ON devices
+    FOR EACH ROW EXECUTE FUNCTION devices_search_document();
+
+CREATE OR REPLACE FUNCTION users_refresh_device_search() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    UPDATE devices SET user_id = user_id WHERE user_id = NEW.id;
+    RETURN NULL;
+END';
+
+DROP TRIGGER IF EXISTS users_refresh_device_search ON users;
+CREATE TRIGGER users_refresh_device_search
+    AFTER UPDATE OF full_name, address, email, phone ON users
+    FOR EACH ROW EXECUTE FUNCTION users_refresh_device_search();
+
+CREATE OR REPLACE FUNCTION passports_refresh_device_search() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    UPDATE devices SET passport_id = passport_id WHERE passport_id = NEW.id;
+    RETURN NULL;
+END';
+
+DROP TRIGGER IF EXISTS passports_refresh_device_search ON passports;
+CREATE TRIGGER passports_refresh_device_search
+    AFTER UPDATE OF name, model ON passports
+    FOR EACH ROW EXECUTE FUNCTION passports_refresh_device_search();
+
+UPDATE devices SET passport_id = passport_id WHERE search_document IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_users_search_document ON users USING gin (search_document gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_search_vector ON users USING gin (search_vector);
+CREATE INDEX IF NOT EXISTS idx_devices_search_document ON devices USING gin (search_document gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_devices_search_vector ON devices USING gin (search_vector);
+
+-- Users: email is unique regardless of case, so the login and uniqueness lookups on lower(email)
+-- and phone are both index probes. The plain unique indexes come from the entity mapping.
+-- Emails registered before differing only in case stop startup, with the ids of the users sharing them.
+DO '
+DECLARE
+    duplicates text;
+BEGIN
+    IF to_regclass(''users_email_lower_key'') IS NULL THEN
+        SELECT string_agg(ids, ''; '')
+        INTO duplicates
+        FROM (SELECT string_agg(id::text, '', '' ORDER BY id) AS ids
+              FROM users
+              WHERE email IS NOT NULL
+              GROUP BY lower(email)
+              HAVING count(*) > 1) shared;
+        IF duplicates IS NOT NULL THEN
+            RAISE EXCEPTION ''users_email_lower_key not added, users sharing an email in different case (ids): %'', duplicates;
+        END IF;
+        CREATE UNIQUE INDEX users_email_lower_key ON users (lower(email));
+    END IF;
+END';
+
+-- Passports, users and renovations: ids come from sequences handed out in blocks of 50 instead of
+-- identity columns, so inserts can be batched. Each sequence is moved past the rows inserted through
+-- the identity column, never backwards, so blocks already taken by running instances stay unique.
+CREATE SEQUENCE IF NOT EXISTS passports_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('passports_seq', GREATEST(
+        (SELECT last_value FROM passports_seq),
+        (SELECT COALESCE(MAX(id), 0) FROM passports) + 50
+));
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('users_seq', GREATEST(
+        (SELECT last_value FROM users_seq),
+        (SELECT COALESCE(MAX(id), 0) FROM users) + 50
+));
+
+CREATE SEQUENCE IF NOT EXISTS renovations_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('renovations_seq', GREATEST(
+        (SELECT last_value FROM renovations_seq),
+        (SELECT COALESCE(MAX(id), 0) FROM renovations) + 50
+));
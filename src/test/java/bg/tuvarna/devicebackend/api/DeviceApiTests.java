@@ -107,4 +107,14 @@ class DeviceApiTests {
                 )
                 .andExpect(status().isUnauthorized());
     }
+
+    @Test
+    @Order(4)
+    void exportDevicesForbiddenForUser() throws Exception {
+        mvc.perform(
+                        get("/api/v1/devices/export")
+                                .header("Authorization", "Bearer " + token)
+                )
+                .andExpect(status().isForbidden());
+    }
 }
@@ -0,0 +1,25 @@
+package bg.tuvarna.devicebackend.benchmark;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The columns of {@link bg.tuvarna.devicebackend.models.entities.Passport} with the IDENTITY id it had
+ * before, for {@link InsertBatchingBenchmark} only.
+ */
+@Entity
+@Table(name = "benchmark_identity_passports")
+@Getter
+@Setter
+public class IdentityPassport {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String name;
+    private String model;
+    private String serialPrefix;
+    private int fromSerialNumber;
+    private int toSerialNumber;
+    private int warrantyMonths;
+}
@@ -0,0 +1,28 @@
+package bg.tuvarna.devicebackend.benchmark;
+
+import bg.tuvarna.devicebackend.models.entities.Device;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * The columns of {@link bg.tuvarna.devicebackend.models.entities.Renovation} with the IDENTITY id it had
+ * before, for {@link InsertBatchingBenchmark} only.
+ */
+@Entity
+@Table(name = "benchmark_identity_renovations")
+@Getter
+@Setter
+public class IdentityRenovation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String description;
+    private LocalDate renovationDate;
+
+    @ManyToOne
+    @JoinColumn(name = "device_serial_number")
+    private Device device;
+}
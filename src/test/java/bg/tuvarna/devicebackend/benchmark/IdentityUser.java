@@ -0,0 +1,27 @@
+package bg.tuvarna.devicebackend.benchmark;
+
+import bg.tuvarna.devicebackend.models.enums.UserRole;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The columns of {@link bg.tuvarna.devicebackend.models.entities.User} with the IDENTITY id it had
+ * before, for {@link InsertBatchingBenchmark} only.
+ */
+@Entity
+@Table(name = "benchmark_identity_users")
+@Getter
+@Setter
+public class IdentityUser {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String fullName;
+    private String address;
+    private String phone;
+    private String email;
+    private String password;
+    @Enumerated(EnumType.STRING)
+    private UserRole role;
+}
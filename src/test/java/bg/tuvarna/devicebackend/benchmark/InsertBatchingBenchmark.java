@@ -0,0 +1,196 @@
+package bg.tuvarna.devicebackend.benchmark;
+
+import bg.tuvarna.devicebackend.models.entities.Device;
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.models.entities.Renovation;
+import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.models.enums.UserRole;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.function.IntFunction;
+
+/**
+ * Inserts the same rows into each entity and into a copy of it mapped with the IDENTITY id it had
+ * before, both under the configured {@code hibernate.jdbc.batch_size}. Hibernate sends IDENTITY inserts
+ * one statement per round trip to read the generated id, the pooled sequence ids let it batch them.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+public class InsertBatchingBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(InsertBatchingBenchmark.class);
+    private static final int ROWS = 5_000;
+    private static final int FLUSH_EVERY = 50;
+    private static final String MARKER = "benchmark";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Device device;
+
+    @BeforeEach
+    void setUp() {
+        device = transactionTemplate.execute(status -> {
+            Passport passport = passport(0);
+            entityManager.persist(passport);
+
+            Device created = new Device();
+            created.setSerialNumber(MARKER + "-device");
+            created.setPassport(passport);
+            created.setPurchaseDate(LocalDate.now());
+            created.setWarrantyExpirationDate(LocalDate.now().plusYears(1));
+            entityManager.persist(created);
+            return created;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createQuery("delete from Renovation r where r.description = :marker")
+                    .setParameter("marker", MARKER)
+                    .executeUpdate();
+            entityManager.createQuery("delete from Device d where d.serialNumber = :serialNumber")
+                    .setParameter("serialNumber", device.getSerialNumber())
+                    .executeUpdate();
+            entityManager.createQuery("delete from Passport p where p.name = :marker")
+                    .setParameter("marker", MARKER)
+                    .executeUpdate();
+            entityManager.createQuery("delete from User u where u.fullName = :marker")
+                    .setParameter("marker", MARKER)
+                    .executeUpdate();
+            entityManager.createQuery("delete from IdentityRenovation").executeUpdate();
+            entityManager.createQuery("delete from IdentityPassport").executeUpdate();
+            entityManager.createQuery("delete from IdentityUser").executeUpdate();
+        });
+    }
+
+    @Test
+    void passports() {
+        compare("passports", this::identityPassport, i -> passport(i + 1));
+    }
+
+    @Test
+    void users() {
+        compare("users", this::identityUser, this::user);
+    }
+
+    @Test
+    void renovations() {
+        compare("renovations", i -> {
+            IdentityRenovation renovation = new IdentityRenovation();
+            renovation.setDevice(entityManager.getReference(Device.class, device.getSerialNumber()));
+            renovation.setDescription(MARKER);
+            renovation.setRenovationDate(LocalDate.now());
+            return renovation;
+        }, i -> {
+            Renovation renovation = new Renovation();
+            renovation.setDevice(entityManager.getReference(Device.class, device.getSerialNumber()));
+            renovation.setDescription(MARKER);
+            renovation.setRenovationDate(LocalDate.now());
+            return renovation;
+        });
+    }
+
+    private void compare(String entity, IntFunction<Object> identityFactory, IntFunction<Object> sequenceFactory) {
+        // Warm up the connection pool, statement caches and JIT.
+        insert(identityFactory, 0, ROWS / 10);
+        insert(sequenceFactory, 0, ROWS / 10);
+
+        Result identity = insert(identityFactory, ROWS, ROWS);
+        Result sequence = insert(sequenceFactory, ROWS, ROWS);
+
+        logger.info(
+                "{}: identity ids {} rows/s ({} statements), sequence ids {} rows/s ({} statements), {}x",
+                entity,
+                Math.round(identity.rowsPerSecond()),
+                identity.statements(),
+                Math.round(sequence.rowsPerSecond()),
+                sequence.statements(),
+                String.format("%.1f", sequence.rowsPerSecond() / identity.rowsPerSecond())
+        );
+    }
+
+    private Result insert(IntFunction<Object> factory, int offset, int rows) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < rows; i++) {
+                entityManager.persist(factory.apply(offset + i));
+                if ((i + 1) % FLUSH_EVERY == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+
+        return new Result(rows * 1_000_000_000d / elapsed, statistics.getPrepareStatementCount());
+    }
+
+    private static Passport passport(int i) {
+        return Passport.builder()
+                .name(MARKER)
+                .model(MARKER)
+                .serialPrefix("BM" + i + "-")
+                .fromSerialNumber(1)
+                .toSerialNumber(10)
+                .warrantyMonths(12)
+                .build();
+    }
+
+    private IdentityPassport identityPassport(int i) {
+        IdentityPassport passport = new IdentityPassport();
+        passport.setName(MARKER);
+        passport.setModel(MARKER);
+        passport.setSerialPrefix("BM" + i + "-");
+        passport.setFromSerialNumber(1);
+        passport.setToSerialNumber(10);
+        passport.setWarrantyMonths(12);
+        return passport;
+    }
+
+    private IdentityUser identityUser(int i) {
+        IdentityUser user = new IdentityUser();
+        user.setFullName(MARKER);
+        user.setEmail(MARKER + i + "@example.com");
+        user.setPhone("+359" + (100_000_000 + i));
+        user.setRole(UserRole.USER);
+        return user;
+    }
+
+    private User user(int i) {
+        return User.builder()
+                .fullName(MARKER)
+                .email(MARKER + i + "@example.com")
+                .phone("+359" + (100_000_000 + i))
+                .role(UserRole.USER)
+                .build();
+    }
+
+    private record Result(double rowsPerSecond, long statements) {
+    }
+}
@@ -0,0 +1,75 @@
+package bg.tuvarna.devicebackend.cache;
+
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.repositories.PassportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PassportCacheTests {
+    private PassportRepository passportRepository;
+    private InvalidationBus bus;
+    private PassportCache firstNode;
+    private PassportCache secondNode;
+
+    private static Passport passport(Long id, int from, int to) {
+        return Passport.builder()
+                .id(id)
+                .name("Passport " + id)
+                .serialPrefix("SN-")
+                .fromSerialNumber(from)
+                .toSerialNumber(to)
+                .build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        passportRepository = mock(PassportRepository.class);
+        bus = new LocalInvalidationBus();
+
+        firstNode = new PassportCache(passportRepository, bus, true);
+        secondNode = new PassportCache(passportRepository, bus, true);
+
+        when(passportRepository.findAll()).thenReturn(List.of(passport(1L, 1, 100)));
+        firstNode.snapshot();
+        secondNode.snapshot();
+    }
+
+    @Test
+    void putShouldPatchOtherNodes() {
+        Passport updated = passport(1L, 200, 300);
+        when(passportRepository.findById(1L)).thenReturn(Optional.of(updated));
+
+        firstNode.put(updated);
+
+        assertEquals(1L, secondNode.findBySerialId("SN-250").getId());
+        assertNull(secondNode.findBySerialId("SN-50"));
+        verify(passportRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void evictShouldRemoveFromOtherNodes() {
+        when(passportRepository.findById(1L)).thenReturn(Optional.empty());
+
+        firstNode.evict(1L);
+
+        assertNull(firstNode.findBySerialId("SN-50"));
+        assertNull(secondNode.findBySerialId("SN-50"));
+    }
+
+    @Test
+    void resyncShouldReloadOnNextRead() {
+        Passport added = passport(2L, 500, 600);
+        when(passportRepository.findAll()).thenReturn(List.of(passport(1L, 1, 100), added));
+
+        bus.publish(PassportCache.CHANNEL, InvalidationBus.RESYNC);
+
+        assertEquals(2L, secondNode.findBySerialId("SN-550").getId());
+        assertEquals(1L, secondNode.findBySerialId("SN-50").getId());
+    }
+}
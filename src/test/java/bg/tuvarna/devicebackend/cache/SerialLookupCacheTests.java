@@ -0,0 +1,59 @@
+package bg.tuvarna.devicebackend.cache;
+
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SerialLookupCacheTests {
+    private InvalidationBus bus;
+    private SerialLookupCache cache;
+
+    @BeforeEach
+    void setUp() {
+        bus = new LocalInvalidationBus();
+        cache = new SerialLookupCache(bus, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void missShouldBeRemembered() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertNull(cache.resolve("SN-1", () -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.resolve("SN-1", () -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void invalidationShouldClearMisses() {
+        cache.resolve("SN-1", () -> null);
+
+        bus.publish(PassportCache.CHANNEL, "other:1");
+
+        Passport passport = new Passport();
+        assertSame(passport, cache.resolve("SN-1", () -> passport));
+    }
+
+    @Test
+    void missFromLookupRunningDuringInvalidationShouldNotBeRemembered() {
+        assertNull(cache.resolve("SN-1", () -> {
+            // The passport is created while the lookup is still reading the old state.
+            bus.publish(PassportCache.CHANNEL, "other:1");
+            return null;
+        }));
+
+        Passport passport = new Passport();
+        assertSame(passport, cache.resolve("SN-1", () -> passport));
+    }
+}
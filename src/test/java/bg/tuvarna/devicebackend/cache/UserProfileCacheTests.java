@@ -0,0 +1,70 @@
+package bg.tuvarna.devicebackend.cache;
+
+import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.models.enums.UserRole;
+import bg.tuvarna.devicebackend.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class UserProfileCacheTests {
+    private UserRepository userRepository;
+    private UserProfileCache firstNode;
+    private UserProfileCache secondNode;
+
+    private static User user(String fullName) {
+        return User.builder()
+                .id(1L)
+                .fullName(fullName)
+                .role(UserRole.USER)
+                .devices(List.of())
+                .build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        InvalidationBus bus = new LocalInvalidationBus();
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+        firstNode = new UserProfileCache(userRepository, bus, transactionManager, 100, Duration.ofMinutes(1));
+        secondNode = new UserProfileCache(userRepository, bus, transactionManager, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void getShouldLoadOnce() {
+        when(userRepository.findProfileById(1L)).thenReturn(Optional.of(user("Ivan")));
+
+        assertEquals("Ivan", firstNode.get(1L).fullName());
+        assertEquals("Ivan", firstNode.get(1L).fullName());
+
+        verify(userRepository, times(1)).findProfileById(1L);
+    }
+
+    @Test
+    void evictShouldDropProfileOnEveryNode() {
+        when(userRepository.findProfileById(1L)).thenReturn(Optional.of(user("Ivan")));
+        firstNode.get(1L);
+        secondNode.get(1L);
+
+        when(userRepository.findProfileById(1L)).thenReturn(Optional.of(user("Petar")));
+        firstNode.evict(1L);
+
+        assertEquals("Petar", firstNode.get(1L).fullName());
+        assertEquals("Petar", secondNode.get(1L).fullName());
+    }
+
+    @Test
+    void getShouldReturnNullForMissingUser() {
+        when(userRepository.findProfileById(2L)).thenReturn(Optional.empty());
+
+        assertNull(firstNode.get(2L));
+    }
+}
@@ -0,0 +1,62 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.controllers.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BoundedPasswordEncoderTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.destroy();
+    }
+
+    @Test
+    void matchesShouldDelegateAndRecordTime() {
+        PasswordEncoder delegate = mock(PasswordEncoder.class);
+        when(delegate.matches("secret", "hash")).thenReturn(true);
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, 1, meterRegistry);
+
+        assertTrue(encoder.matches("secret", "hash"));
+        assertEquals(1, meterRegistry.get("auth.password.hash").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void encodeShouldRejectWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder delegate = mock(PasswordEncoder.class);
+        when(delegate.encode(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, 5, meterRegistry);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+        while (meterRegistry.get("auth.password.queue.size").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        ServiceBusyException ex = assertThrows(ServiceBusyException.class, () -> encoder.encode("third"));
+        assertEquals(5, ex.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("auth.password.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash", queued.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,66 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.controllers.exceptions.ServiceBusyException;
+import bg.tuvarna.devicebackend.models.dtos.UserCredentials;
+import bg.tuvarna.devicebackend.models.enums.UserRole;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CredentialsAuthenticationProviderTests {
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final CredentialsAuthenticationProvider provider =
+            new CredentialsAuthenticationProvider(userDetailsService, passwordEncoder);
+    private final UserCredentials credentials = new UserCredentials(7L, "hash", UserRole.USER);
+
+    @Test
+    void authenticateShouldAcceptCorrectPasswordWithoutLoadingUser() {
+        when(passwordEncoder.matches("secret", "hash")).thenReturn(true);
+
+        Authentication authentication = provider.authenticate(new UsernamePasswordAuthenticationToken(credentials, "secret"));
+
+        assertTrue(authentication.isAuthenticated());
+        assertSame(credentials, authentication.getPrincipal());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void authenticateShouldRejectWrongPassword() {
+        when(passwordEncoder.matches("wrong", "hash")).thenReturn(false);
+
+        assertThrows(
+                BadCredentialsException.class,
+                () -> provider.authenticate(new UsernamePasswordAuthenticationToken(credentials, "wrong"))
+        );
+    }
+
+    @Test
+    void authenticateShouldRejectMissingPassword() {
+        assertThrows(
+                BadCredentialsException.class,
+                () -> provider.authenticate(new UsernamePasswordAuthenticationToken(credentials, null))
+        );
+        verifyNoInteractions(passwordEncoder);
+    }
+
+    @Test
+    void authenticateShouldReportBusyEncoderAsInternalError() {
+        ServiceBusyException busy = new ServiceBusyException("Too many logins", 1);
+        when(passwordEncoder.matches("secret", "hash")).thenThrow(busy);
+
+        InternalAuthenticationServiceException ex = assertThrows(
+                InternalAuthenticationServiceException.class,
+                () -> provider.authenticate(new UsernamePasswordAuthenticationToken(credentials, "secret"))
+        );
+
+        assertSame(busy, ex.getCause());
+    }
+}
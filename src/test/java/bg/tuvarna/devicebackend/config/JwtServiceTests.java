@@ -0,0 +1,107 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.models.dtos.UserCredentials;
+import bg.tuvarna.devicebackend.models.dtos.UserPrincipal;
+import bg.tuvarna.devicebackend.models.enums.UserRole;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.FileSystemResource;
+
+import javax.crypto.SecretKey;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtServiceTests {
+    private static final UserCredentials CREDENTIALS = new UserCredentials(7L, "hash", UserRole.USER);
+
+    private final JwtService jwtService = new JwtService(JwtKeyRing.random(), 100);
+
+    @Test
+    void extractPrincipalShouldReadIdAndRole() {
+        String token = jwtService.generateToken(new UserCredentials(7L, "hash", UserRole.ADMIN));
+
+        UserPrincipal principal = jwtService.extractPrincipal(token);
+
+        assertEquals(7L, principal.id());
+        assertEquals(UserRole.ADMIN, principal.role());
+    }
+
+    @Test
+    void verifyShouldReuseClaimsOfVerifiedToken() {
+        String token = jwtService.generateToken(CREDENTIALS);
+
+        assertSame(jwtService.verify(token), jwtService.verify(token));
+    }
+
+    @Test
+    void verifyShouldRejectTokenSignedWithAnotherKey() {
+        String token = new JwtService(JwtKeyRing.random(), 100).generateToken(CREDENTIALS);
+
+        assertThrows(SignatureException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    void verifyShouldAcceptTokensOfRotatedKey() {
+        SecretKey oldKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        SecretKey newKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+
+        String oldToken = new JwtService(new JwtKeyRing(Map.of("old", oldKey), "old"), 100).generateToken(CREDENTIALS);
+        JwtService rotated = new JwtService(new JwtKeyRing(Map.of("old", oldKey, "new", newKey), "new"), 100);
+        String newToken = rotated.generateToken(CREDENTIALS);
+
+        assertEquals(7L, rotated.extractPrincipal(oldToken).id());
+        assertEquals(7L, rotated.extractPrincipal(newToken).id());
+        assertThrows(
+                SignatureException.class,
+                () -> new JwtService(new JwtKeyRing(Map.of("old", oldKey), "old"), 100).verify(newToken)
+        );
+    }
+
+    @Test
+    void keyRingShouldLoadSecretKeysFromKeystore(@TempDir Path dir) throws Exception {
+        char[] password = "changeit".toCharArray();
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        store.load(null, password);
+        store.setEntry(
+                "first",
+                new KeyStore.SecretKeyEntry(Keys.secretKeyFor(SignatureAlgorithm.HS256)),
+                new KeyStore.PasswordProtection(password)
+        );
+        store.setEntry(
+                "second",
+                new KeyStore.SecretKeyEntry(Keys.secretKeyFor(SignatureAlgorithm.HS256)),
+                new KeyStore.PasswordProtection(password)
+        );
+        Path file = dir.resolve("jwt.p12");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            store.store(out, password);
+        }
+
+        JwtKeyRing keyRing = JwtKeyRing.load(new FileSystemResource(file), "PKCS12", password, "second");
+
+        assertEquals(2, keyRing.getKeyIds().size());
+        assertEquals("second", keyRing.getSigningKeyId());
+        String token = new JwtService(keyRing, 100).generateToken(CREDENTIALS);
+        assertEquals(7L, new JwtService(keyRing, 100).extractPrincipal(token).id());
+    }
+
+    @Test
+    void keyRingShouldFailWithoutKeystoreWhenRequired() {
+        ApplicationConfig config = new ApplicationConfig(null);
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> config.jwtKeyRing(new DefaultResourceLoader(), "", "PKCS12", "", "", true)
+        );
+        assertDoesNotThrow(() -> config.jwtKeyRing(new DefaultResourceLoader(), "", "PKCS12", "", "", false));
+    }
+}
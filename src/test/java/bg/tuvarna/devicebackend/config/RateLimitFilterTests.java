@@ -0,0 +1,98 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.ratelimit.LocalRateLimitStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.catalina.filters.RemoteIpFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimitFilterTests {
+    private final RateLimitFilter filter = new RateLimitFilter(
+            new LocalRateLimitStore(100, Duration.ofMinutes(10)),
+            new ObjectMapper().findAndRegisterModules(),
+            new MockEnvironment()
+                    .withProperty("rate-limit.login.capacity", "1")
+                    .withProperty("rate-limit.login.per-minute", "2"),
+            true
+    );
+
+    @Test
+    void filterShouldRejectWith429AndRetryAfterOnceBucketIsEmpty() throws Exception {
+        MockHttpServletResponse first = login("10.0.0.1");
+        MockHttpServletResponse second = login("10.0.0.1");
+
+        assertEquals(200, first.getStatus());
+        assertEquals(429, second.getStatus());
+        assertEquals("30", second.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(second.getContentAsString().contains("Too many requests"));
+    }
+
+    @Test
+    void filterShouldLimitEveryClientAddressOnItsOwn() throws Exception {
+        login("10.0.0.1");
+
+        assertEquals(200, login("10.0.0.2").getStatus());
+    }
+
+    @Test
+    void filterShouldPassRoutesWithoutLimit() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users/getUser");
+            request.setRemoteAddr("10.0.0.1");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            filter.doFilter(request, response, new MockFilterChain());
+
+            assertEquals(200, response.getStatus());
+        }
+    }
+
+    @Test
+    void filterShouldLimitClientsBehindPrivateProxyOnTheirOwn() throws Exception {
+        MockHttpServletResponse first = loginThroughProxy("172.18.0.5", "198.51.100.1");
+        MockHttpServletResponse second = loginThroughProxy("172.18.0.5", "198.51.100.2");
+
+        assertEquals(200, first.getStatus());
+        assertEquals(200, second.getStatus());
+    }
+
+    @Test
+    void filterShouldIgnoreForwardedForFromUntrustedAddress() throws Exception {
+        loginThroughProxy("203.0.113.7", "198.51.100.1");
+
+        assertEquals(429, loginThroughProxy("203.0.113.7", "198.51.100.2").getStatus());
+    }
+
+    private MockHttpServletResponse login(String remoteAddr) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/users/login");
+        request.setRemoteAddr(remoteAddr);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        return response;
+    }
+
+    /**
+     * Sends the request through Tomcat's remote IP handling with its default trusted proxies first,
+     * as the native forward headers strategy does.
+     */
+    private MockHttpServletResponse loginThroughProxy(String remoteAddr, String forwardedFor) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/users/login");
+        request.setRemoteAddr(remoteAddr);
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new RemoteIpFilter().doFilter(request, response, (forwarded, out) -> filter.doFilter(forwarded, out, new MockFilterChain()));
+
+        return response;
+    }
+}
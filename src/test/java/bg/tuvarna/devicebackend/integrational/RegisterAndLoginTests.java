@@ -2,7 +2,14 @@ package bg.tuvarna.devicebackend.integrational;
 
 import bg.tuvarna.devicebackend.controllers.exceptions.ErrorResponse;
 import bg.tuvarna.devicebackend.models.dtos.AuthResponseDTO;
+import bg.tuvarna.devicebackend.models.entities.Device;
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.models.entities.Renovation;
 import bg.tuvarna.devicebackend.models.enums.UserRole;
+import bg.tuvarna.devicebackend.repositories.DeviceRepository;
+import bg.tuvarna.devicebackend.repositories.PassportRepository;
+import bg.tuvarna.devicebackend.repositories.RenovationRepository;
+import bg.tuvarna.devicebackend.repositories.UserRepository;
 import bg.tuvarna.devicebackend.services.DeviceService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.*;
@@ -22,6 +29,8 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.time.LocalDate;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -43,6 +52,14 @@ class RegisterAndLoginTests {
     private ObjectMapper mapper;
     @MockBean
     private DeviceService deviceService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PassportRepository passportRepository;
+    @Autowired
+    private DeviceRepository deviceRepository;
+    @Autowired
+    private RenovationRepository renovationRepository;
 
     private static String token;
 
@@ -172,4 +189,73 @@ class RegisterAndLoginTests {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.role").value(UserRole.USER.toString()));
     }
+
+    @Test
+    @Order(6)
+    void userLoginWithRenovatedDeviceSuccess() throws Exception {
+        Passport passport = passportRepository.save(Passport.builder()
+                .name("Login passport")
+                .model("Login model")
+                .serialPrefix("LG-")
+                .fromSerialNumber(1)
+                .toSerialNumber(100)
+                .warrantyMonths(12)
+                .build());
+
+        Device device = new Device();
+        device.setSerialNumber("LG-1");
+        device.setPassport(passport);
+        device.setUser(userRepository.getReferenceById(userRepository.findCredentials("gosho@abv.bg").orElseThrow().id()));
+        device.setPurchaseDate(LocalDate.now());
+        device.setWarrantyExpirationDate(LocalDate.now().plusYears(2));
+        deviceRepository.save(device);
+
+        Renovation renovation = new Renovation();
+        renovation.setDevice(device);
+        renovation.setDescription("Changed compressor");
+        renovation.setRenovationDate(LocalDate.now());
+        renovationRepository.save(renovation);
+
+        mvc.perform(
+                    post("/api/v1/users/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    {
+                                      "username": "gosho@abv.bg",
+                                      "password": "Az$um_GOSHO123"
+                                    }
+                                    """)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.user.devices[0].serialNumber").value("LG-1"));
+    }
+
+    @Test
+    @Order(7)
+    void userLoginWrongPasswordFailed() throws Exception {
+        mvc.perform(
+                    post("/api/v1/users/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    {
+                                      "username": "gosho@abv.bg",
+                                      "password": "Az$um_WRONG123"
+                                    }
+                                    """)
+                )
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").value("Wrong credentials!"));
+    }
+
+    @Test
+    @Order(8)
+    void userLoginMalformedBodyFailed() throws Exception {
+        mvc.perform(
+                    post("/api/v1/users/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"username\": \"gosho@abv.bg\",")
+                )
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").value("Wrong credentials!"));
+    }
 }
\ No newline at end of file
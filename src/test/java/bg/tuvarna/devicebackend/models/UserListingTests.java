@@ -0,0 +1,38 @@
+package bg.tuvarna.devicebackend.models;
+
+import bg.tuvarna.devicebackend.models.dtos.UserListing;
+import bg.tuvarna.devicebackend.models.entities.Device;
+import bg.tuvarna.devicebackend.models.entities.Renovation;
+import bg.tuvarna.devicebackend.models.entities.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserListingTests {
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void devicesShouldBeSerializedWithRenovationSummaryOnly() throws Exception {
+        Device device = new Device();
+        device.setSerialNumber("SN-1");
+        device.setRenovationCount(1L);
+        device.setLastRenovationDate(LocalDate.of(2024, 3, 1));
+        Renovation renovation = new Renovation();
+        renovation.setDevice(device);
+        renovation.setRenovationDate(LocalDate.of(2024, 3, 1));
+        device.getRenovations().add(renovation);
+
+        User user = User.builder().id(7L).fullName("Ivan").build();
+        JsonNode json = mapper.valueToTree(new UserListing(user, List.of(device)));
+
+        JsonNode serialized = json.get("devices").get(0);
+        assertEquals("SN-1", serialized.get("serialNumber").asText());
+        assertEquals(1, serialized.get("renovationCount").asLong());
+        assertFalse(serialized.has("renovations"));
+    }
+}
@@ -0,0 +1,71 @@
+package bg.tuvarna.devicebackend.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalRateLimitStoreTests {
+    private static final BucketLimit LIMIT = new BucketLimit(2, 6);
+
+    private final AtomicLong clock = new AtomicLong();
+    private LocalRateLimitStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new LocalRateLimitStore(2, Duration.ofMinutes(1), clock::get);
+    }
+
+    @Test
+    void tryConsumeShouldRejectOnceBucketIsEmpty() {
+        assertTrue(store.tryConsume("login", "10.0.0.1", LIMIT).allowed());
+        assertTrue(store.tryConsume("login", "10.0.0.1", LIMIT).allowed());
+
+        RateLimitDecision rejected = store.tryConsume("login", "10.0.0.1", LIMIT);
+
+        assertFalse(rejected.allowed());
+        assertEquals(10, rejected.retryAfterSeconds());
+        assertTrue(store.tryConsume("login", "10.0.0.2", LIMIT).allowed());
+    }
+
+    @Test
+    void tryConsumeShouldRefillOverTime() {
+        store.tryConsume("login", "10.0.0.1", LIMIT);
+        store.tryConsume("login", "10.0.0.1", LIMIT);
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertTrue(store.tryConsume("login", "10.0.0.1", LIMIT).allowed());
+        assertFalse(store.tryConsume("login", "10.0.0.1", LIMIT).allowed());
+    }
+
+    @Test
+    void tryConsumeShouldEvictIdleBuckets() {
+        store.tryConsume("login", "10.0.0.1", LIMIT);
+        store.tryConsume("login", "10.0.0.2", LIMIT);
+
+        clock.addAndGet(Duration.ofMinutes(1).toNanos());
+        store.tryConsume("login", "10.0.0.3", LIMIT);
+
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void tryConsumeShouldEvictLeastRecentlyUsedBucketWhenFull() {
+        store.tryConsume("login", "10.0.0.1", LIMIT);
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        store.tryConsume("login", "10.0.0.2", LIMIT);
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        store.tryConsume("login", "10.0.0.1", LIMIT);
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertTrue(store.tryConsume("login", "10.0.0.3", LIMIT).allowed());
+        assertTrue(store.tryConsume("login", "10.0.0.3", LIMIT).allowed());
+        assertFalse(store.tryConsume("login", "10.0.0.3", LIMIT).allowed());
+        assertEquals(2, store.size());
+        assertFalse(store.tryConsume("login", "10.0.0.1", LIMIT).allowed());
+    }
+}
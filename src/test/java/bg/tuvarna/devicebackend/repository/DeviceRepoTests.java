@@ -1,16 +1,22 @@
 package bg.tuvarna.devicebackend.repository;
 
+import bg.tuvarna.devicebackend.models.dtos.DeviceListingVO;
+import bg.tuvarna.devicebackend.models.dtos.RenovationHistoryVO;
 import bg.tuvarna.devicebackend.models.entities.Device;
+import bg.tuvarna.devicebackend.models.entities.Renovation;
 import bg.tuvarna.devicebackend.repositories.DeviceRepository;
+import bg.tuvarna.devicebackend.repositories.RenovationRepository;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,6 +29,12 @@ public class DeviceRepoTests {
     @Autowired
     private DeviceRepository deviceRepository;
 
+    @Autowired
+    private RenovationRepository renovationRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     @BeforeEach
     public void setUp() {
         deviceRepository.deleteAll(); // clear before each test
@@ -56,14 +68,15 @@ public class DeviceRepoTests {
 
     @Test
     @Order(3)
-    public void testGetAllDevices_ShouldReturnPagedList() {
+    public void testFindListing_ShouldReturnPagedSearchMatches() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Device> devicePage = deviceRepository.getAllDevices(pageable);
+        Page<DeviceListingVO> devicePage = deviceRepository.findListing("sb15", pageable);
 
         assertNotNull(devicePage);
         assertFalse(devicePage.isEmpty(), "Page should not be empty");
         assertEquals(1, devicePage.getTotalElements());
-        assertEquals("SB15FDPSF", devicePage.getContent().get(0).getSerialNumber());
+        assertEquals("SB15FDPSF", devicePage.getContent().get(0).serialNumber());
+        assertTrue(deviceRepository.findListing("missing", pageable).isEmpty());
     }
 
     @Test
@@ -104,4 +117,89 @@ public class DeviceRepoTests {
         boolean exists = deviceRepository.existsById("NOT_EXIST");
         assertFalse(exists);
     }
+
+    @Test
+    @Order(8)
+    public void testFindPageAfterPurchaseDate_ShouldSeekPastCursor() {
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        for (String serial : List.of("K1", "K2", "K3")) {
+            Device device = new Device();
+            device.setSerialNumber(serial);
+            device.setPurchaseDate(date);
+            deviceRepository.save(device);
+        }
+
+        List<DeviceListingVO> page = deviceRepository.findPageAfterPurchaseDate(date, "K1", PageRequest.of(0, 10));
+
+        assertEquals(List.of("K2", "K3", "SB15FDPSF"), page.stream().map(DeviceListingVO::serialNumber).toList());
+    }
+
+    @Test
+    @Order(9)
+    public void testFindPageAfterSerialNumber_ShouldReturnFollowingDevices() {
+        List<DeviceListingVO> firstPage = deviceRepository.findPageAfterSerialNumber("", PageRequest.of(0, 10));
+        List<DeviceListingVO> nextPage = deviceRepository.findPageAfterSerialNumber("SB15FDPSF", PageRequest.of(0, 10));
+
+        assertEquals(1, firstPage.size());
+        assertTrue(nextPage.isEmpty());
+    }
+
+    @Test
+    @Order(10)
+    public void testFindAllListing_ShouldCountRenovations() {
+        Device device = deviceRepository.findById("SB15FDPSF").orElseThrow();
+        Renovation renovation = new Renovation();
+        renovation.setDescription("Screen");
+        renovation.setRenovationDate(LocalDate.of(2024, 2, 1));
+        renovation.setDevice(device);
+        device.getRenovations().add(renovation);
+        deviceRepository.saveAndFlush(device);
+
+        Page<DeviceListingVO> page = deviceRepository.findAllListing(PageRequest.of(0, 10));
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals(1L, page.getContent().get(0).renovationCount());
+    }
+
+    @Test
+    @Order(11)
+    public void testFindHistory_ShouldPageNewestFirstWithinRange() {
+        Device device = deviceRepository.findById("SB15FDPSF").orElseThrow();
+        for (int month = 1; month <= 3; month++) {
+            Renovation renovation = new Renovation();
+            renovation.setDescription("Repair " + month);
+            renovation.setRenovationDate(LocalDate.of(2024, month, 1));
+            renovation.setDevice(device);
+            renovationRepository.save(renovation);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 2, 28);
+        List<RenovationHistoryVO> firstPage = renovationRepository.findHistory("SB15FDPSF", from, to, PageRequest.of(0, 1));
+        List<RenovationHistoryVO> nextPage = renovationRepository.findHistoryBefore(
+                "SB15FDPSF", from, to, firstPage.get(0).renovationDate(), firstPage.get(0).id(), PageRequest.of(0, 1)
+        );
+        Device reloaded = deviceRepository.findById("SB15FDPSF").orElseThrow();
+
+        assertEquals("Repair 2", firstPage.get(0).description());
+        assertEquals("Repair 1", nextPage.get(0).description());
+        assertEquals(3L, reloaded.getRenovationCount());
+        assertEquals(LocalDate.of(2024, 3, 1), reloaded.getLastRenovationDate());
+    }
+
+    @Test
+    @Order(12)
+    public void testFindPageWithoutPurchaseDate_ShouldReturnOnlyUndatedDevices() {
+        for (String serial : List.of("U1", "U2")) {
+            Device device = new Device();
+            device.setSerialNumber(serial);
+            deviceRepository.save(device);
+        }
+
+        List<DeviceListingVO> page = deviceRepository.findPageWithoutPurchaseDate("U1", PageRequest.of(0, 10));
+
+        assertEquals(List.of("U2"), page.stream().map(DeviceListingVO::serialNumber).toList());
+    }
 }
@@ -44,9 +44,8 @@ public class PassportRepoTests {
 
 
     @Test
-    void testFindByFromSerialNumberBetween_ShouldReturnEmptyForNonMatchingPrefix() {
-        List<Passport> results = passportRepository.findByFromSerialNumberBetween("ZZ", 1, 5000);
-        assertTrue(results.isEmpty(), "Should not find any passports for unknown prefix");
+    void testExistsOverlapping_ShouldBeFalseForNonMatchingPrefix() {
+        assertFalse(passportRepository.existsOverlapping("ZZ", 1, 5000), "Should not find any passports for unknown prefix");
     }
 
     @Test
@@ -64,4 +63,17 @@ public class PassportRepoTests {
         List<Passport> results = passportRepository.findByFromSerial("ZZ9999");
         assertTrue(results.isEmpty(), "Should return empty for non-matching serial prefix");
     }
-}
+
+    @Test
+    void testExistsOverlapping_ShouldDetectContainedAndContainingRanges() {
+        Passport passport = passportRepository.save(PassportMapper.toEntity(new PassportCreateVO(
+                "Model C", "C1", "OV", 12, 100, 200
+        )));
+
+        assertTrue(passportRepository.existsOverlapping("OV", 120, 150), "Range inside an existing range overlaps");
+        assertTrue(passportRepository.existsOverlapping("OV", 1, 5000), "Range containing an existing range overlaps");
+        assertTrue(passportRepository.existsOverlapping("OV", 200, 300), "Ranges sharing a bound overlap");
+        assertFalse(passportRepository.existsOverlapping("OV", 201, 300), "Adjacent range does not overlap");
+        assertFalse(passportRepository.existsOverlappingOther("OV", 1, 5000, passport.getId()), "Passport does not overlap itself");
+    }
+}
\ No newline at end of file
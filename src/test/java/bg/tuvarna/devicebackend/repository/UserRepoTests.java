@@ -1,16 +1,21 @@
 package bg.tuvarna.devicebackend.repository;
 
+import bg.tuvarna.devicebackend.models.entities.Device;
 import bg.tuvarna.devicebackend.models.entities.User;
 import bg.tuvarna.devicebackend.models.enums.UserRole;
+import bg.tuvarna.devicebackend.repositories.DeviceRepository;
 import bg.tuvarna.devicebackend.repositories.UserRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @DataJpaTest
@@ -19,6 +24,11 @@ class UserRepoTests {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    private User owner;
+
     @BeforeEach
     void setUp() {
         User user = User.builder()
@@ -28,26 +38,47 @@ class UserRepoTests {
                 .role(UserRole.USER)
                 .build();
 
-        userRepository.save(user);
+        owner = userRepository.save(user);
     }
 
     @AfterEach
     void tearDown() {
+        deviceRepository.deleteAll();
         userRepository.deleteAll();
     }
 
     @Test
     void userFindBySearchName() {
-        User user = userRepository
-                .searchBy("gosho", Pageable.ofSize(1))
+        Long id = userRepository
+                .searchUserIds("gosho", Pageable.ofSize(1))
                 .getContent()
                 .getFirst();
-        assertEquals("0888123456", user.getPhone());
+        assertEquals("0888123456", userRepository.findById(id).orElseThrow().getPhone());
     }
 
     @Test
     void userFindBySearchPhone() {
-        User user = userRepository.searchBy("0888123456", Pageable.ofSize(1)).getContent().getFirst();
-        assertEquals("gosho", user.getFullName());
+        Long id = userRepository.searchUserIds("0888123456", Pageable.ofSize(1)).getContent().getFirst();
+        assertEquals("gosho", userRepository.findById(id).orElseThrow().getFullName());
+    }
+
+    @Test
+    void searchUserIdsShouldMatchDeviceSerialAndSkipAdmins() {
+        userRepository.save(User.builder()
+                .fullName("admin SN-77")
+                .email("admin@abv.bg")
+                .phone("0888000000")
+                .role(UserRole.ADMIN)
+                .build());
+
+        Device device = new Device();
+        device.setSerialNumber("SN-77");
+        device.setUser(owner);
+        deviceRepository.save(device);
+
+        Page<Long> ids = userRepository.searchUserIds("sn-77", Pageable.ofSize(10));
+
+        assertEquals(List.of(owner.getId()), ids.getContent());
+        assertEquals(1, ids.getTotalElements());
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package bg.tuvarna.devicebackend.service;
+
+import bg.tuvarna.devicebackend.models.dtos.FirstRepairVO;
+import bg.tuvarna.devicebackend.models.dtos.MonthlyRenovationsVO;
+import bg.tuvarna.devicebackend.models.dtos.RenovationCreateVO;
+import bg.tuvarna.devicebackend.models.entities.Device;
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.repositories.DeviceRepository;
+import bg.tuvarna.devicebackend.repositories.PassportRepository;
+import bg.tuvarna.devicebackend.services.AnalyticsService;
+import bg.tuvarna.devicebackend.services.RenovationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the rollup SQL against the database: the counters added as renovations are saved must equal
+ * what the rebuild recomputes from the renovations.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AnalyticsRollupTests {
+    private static final String MODEL = "AN-MODEL";
+    private static final YearMonth FROM = YearMonth.of(2024, 1);
+    private static final YearMonth TO = YearMonth.of(2024, 12);
+
+    @Autowired
+    private AnalyticsService analyticsService;
+    @Autowired
+    private RenovationService renovationService;
+    @Autowired
+    private DeviceRepository deviceRepository;
+    @Autowired
+    private PassportRepository passportRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Passport passport;
+
+    @BeforeEach
+    void setUp() {
+        passport = passportRepository.save(Passport.builder()
+                .name("Analytics passport")
+                .model(MODEL)
+                .serialPrefix("AN-")
+                .fromSerialNumber(1)
+                .toSerialNumber(100)
+                .warrantyMonths(12)
+                .build());
+
+        saveDevice("AN-1", passport, LocalDate.of(2024, 1, 1));
+        saveDevice("AN-2", passport, LocalDate.of(2024, 2, 1));
+        saveDevice("AN-3", null, null);
+
+        // Start from rollups that match every renovation already in the database.
+        analyticsService.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from renovations where device_serial_number in ('AN-1', 'AN-2', 'AN-3')");
+        jdbcTemplate.update("delete from devices where serial_number in ('AN-1', 'AN-2', 'AN-3')");
+        passportRepository.delete(passport);
+        analyticsService.rebuild();
+    }
+
+    @Test
+    void recordedRollupsShouldMatchRebuild() {
+        renovationService.save(new RenovationCreateVO("AN-1", "Fan", LocalDate.of(2024, 3, 1)));
+        renovationService.saveAll(List.of(
+                new RenovationCreateVO("AN-1", "Compressor", LocalDate.of(2024, 2, 15)),
+                new RenovationCreateVO("AN-2", "Door seal", LocalDate.of(2024, 3, 10)),
+                new RenovationCreateVO("AN-3", "Lamp", LocalDate.of(2024, 3, 20))
+        ));
+        renovationService.save(new RenovationCreateVO("AN-2", "Thermostat", LocalDate.of(2024, 4, 1)));
+
+        List<MonthlyRenovationsVO> recordedMonthly = analyticsService.getMonthlyRenovations(null, FROM, TO);
+        List<FirstRepairVO> recordedFirstRepairs = analyticsService.getFirstRepairs();
+
+        analyticsService.rebuild();
+
+        assertEquals(analyticsService.getMonthlyRenovations(null, FROM, TO), recordedMonthly);
+        assertEquals(analyticsService.getFirstRepairs(), recordedFirstRepairs);
+
+        assertEquals(
+                List.of(
+                        new MonthlyRenovationsVO(MODEL, YearMonth.of(2024, 2), 1),
+                        new MonthlyRenovationsVO(MODEL, YearMonth.of(2024, 3), 2),
+                        new MonthlyRenovationsVO(MODEL, YearMonth.of(2024, 4), 1)
+                ),
+                analyticsService.getMonthlyRenovations(MODEL, FROM, TO)
+        );
+        assertEquals(
+                List.of(new FirstRepairVO(MODEL, 2, (45 + 38) / 2d)),
+                recordedFirstRepairs.stream().filter(stat -> stat.passportModel().equals(MODEL)).toList()
+        );
+    }
+
+    private void saveDevice(String serialNumber, Passport passport, LocalDate purchaseDate) {
+        Device device = new Device();
+        device.setSerialNumber(serialNumber);
+        device.setPassport(passport);
+        device.setPurchaseDate(purchaseDate);
+        device.setWarrantyExpirationDate(purchaseDate != null ? purchaseDate.plusYears(2) : null);
+        deviceRepository.save(device);
+    }
+}
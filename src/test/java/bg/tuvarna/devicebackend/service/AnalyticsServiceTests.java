@@ -0,0 +1,94 @@
+package bg.tuvarna.devicebackend.service;
+
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.models.dtos.RenovatedDeviceRow;
+import bg.tuvarna.devicebackend.models.entities.Device;
+import bg.tuvarna.devicebackend.models.entities.Renovation;
+import bg.tuvarna.devicebackend.repositories.AnalyticsJdbcRepository;
+import bg.tuvarna.devicebackend.services.AnalyticsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class AnalyticsServiceTests {
+
+    @MockBean
+    private AnalyticsJdbcRepository analyticsJdbcRepository;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    private static Renovation renovation(String serialNumber, LocalDate date) {
+        Device device = new Device();
+        device.setSerialNumber(serialNumber);
+
+        Renovation renovation = new Renovation();
+        renovation.setDevice(device);
+        renovation.setRenovationDate(date);
+        return renovation;
+    }
+
+    @Test
+    void recordRenovationsShouldCountMonthsAndFirstRepairs() {
+        when(analyticsJdbcRepository.findDevices(anyCollection())).thenReturn(List.of(
+                new RenovatedDeviceRow("SN-1", "Model A", LocalDate.of(2024, 1, 1), null),
+                new RenovatedDeviceRow("SN-2", "Model A", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 1))
+        ));
+
+        analyticsService.recordRenovations(List.of(
+                renovation("SN-1", LocalDate.of(2024, 2, 10)),
+                renovation("SN-1", LocalDate.of(2024, 2, 20)),
+                renovation("SN-2", LocalDate.of(2024, 2, 25)),
+                renovation("SN-404", LocalDate.of(2024, 2, 25))
+        ));
+
+        verify(analyticsJdbcRepository).addMonthlyRenovations("Model A", 202402, 3);
+        // SN-1 is repaired for the first time after 40 days, SN-2 now 5 days earlier than before.
+        verify(analyticsJdbcRepository).addFirstRepairs("Model A", 1, 40 - 5);
+    }
+
+    @Test
+    void recordRenovationsShouldNotChangeFirstRepairForLaterRenovation() {
+        when(analyticsJdbcRepository.findDevices(anyCollection())).thenReturn(List.of(
+                new RenovatedDeviceRow("SN-1", "", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1))
+        ));
+
+        analyticsService.recordRenovations(List.of(renovation("SN-1", LocalDate.of(2024, 5, 1))));
+
+        verify(analyticsJdbcRepository).addMonthlyRenovations("", 202405, 1);
+        verify(analyticsJdbcRepository, never()).addFirstRepairs(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void recordRenovationsShouldSkipWithoutDates() {
+        analyticsService.recordRenovations(List.of(renovation("SN-1", null)));
+
+        verify(analyticsJdbcRepository, never()).findDevices(anyCollection());
+        verify(analyticsJdbcRepository, never()).addMonthlyRenovations(anyString(), anyInt(), anyLong());
+    }
+
+    @Test
+    void getMonthlyRenovationsShouldThrowWhenRangeIsReversed() {
+        assertThrows(
+                CustomException.class,
+                () -> analyticsService.getMonthlyRenovations(null, YearMonth.of(2024, 5), YearMonth.of(2024, 1))
+        );
+    }
+}
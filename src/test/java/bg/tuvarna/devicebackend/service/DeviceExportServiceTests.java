@@ -0,0 +1,80 @@
+package bg.tuvarna.devicebackend.service;
+
+import bg.tuvarna.devicebackend.models.dtos.DeviceExportRow;
+import bg.tuvarna.devicebackend.models.enums.ExportFormat;
+import bg.tuvarna.devicebackend.repositories.DeviceJdbcRepository;
+import bg.tuvarna.devicebackend.services.DeviceExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class DeviceExportServiceTests {
+    @MockBean
+    private DeviceJdbcRepository deviceJdbcRepository;
+    @Autowired
+    private DeviceExportService deviceExportService;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            Consumer<DeviceExportRow> consumer = invocation.getArgument(0);
+            consumer.accept(new DeviceExportRow(
+                    "SN-1",
+                    LocalDate.of(2024, 1, 15),
+                    LocalDate.of(2026, 1, 15),
+                    "Fridge, large",
+                    "F \"200\"",
+                    "Ivan Petrov",
+                    "ivan@abv.bg",
+                    "0888123456"
+            ));
+            consumer.accept(new DeviceExportRow("SN-2", null, null, null, null, null, null, null));
+            return null;
+        }).when(deviceJdbcRepository).streamAll(any());
+    }
+
+    @Test
+    public void exportCsvShouldWriteHeaderAndEscapedRows() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        deviceExportService.export(ExportFormat.CSV, outputStream);
+
+        assertEquals(
+                "serialNumber,purchaseDate,warrantyExpirationDate,passportName,passportModel,ownerName,ownerEmail,ownerPhone\r\n" +
+                        "SN-1,2024-01-15,2026-01-15,\"Fridge, large\",\"F \"\"200\"\"\",Ivan Petrov,ivan@abv.bg,0888123456\r\n" +
+                        "SN-2,,,,,,,\r\n",
+                outputStream.toString(StandardCharsets.UTF_8)
+        );
+    }
+
+    @Test
+    public void exportNdjsonShouldWriteOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        deviceExportService.export(ExportFormat.NDJSON, outputStream);
+
+        assertEquals(
+                "{\"serialNumber\":\"SN-1\",\"purchaseDate\":\"2024-01-15\",\"warrantyExpirationDate\":\"2026-01-15\"," +
+                        "\"passportName\":\"Fridge, large\",\"passportModel\":\"F \\\"200\\\"\",\"ownerName\":\"Ivan Petrov\"," +
+                        "\"ownerEmail\":\"ivan@abv.bg\",\"ownerPhone\":\"0888123456\"}\n" +
+                        "{\"serialNumber\":\"SN-2\",\"purchaseDate\":null,\"warrantyExpirationDate\":null," +
+                        "\"passportName\":null,\"passportModel\":null,\"ownerName\":null," +
+                        "\"ownerEmail\":null,\"ownerPhone\":null}\n",
+                outputStream.toString(StandardCharsets.UTF_8)
+        );
+    }
+}
@@ -0,0 +1,78 @@
+package bg.tuvarna.devicebackend.service;
+
+import bg.tuvarna.devicebackend.models.dtos.DeviceImportReport;
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.repositories.DeviceJdbcRepository;
+import bg.tuvarna.devicebackend.repositories.DeviceRepository;
+import bg.tuvarna.devicebackend.services.DeviceImportService;
+import bg.tuvarna.devicebackend.services.PassportService;
+import bg.tuvarna.devicebackend.utils.SerialPrefixTrie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class DeviceImportServiceTests {
+
+    @MockBean
+    private DeviceRepository deviceRepository;
+
+    @MockBean
+    private DeviceJdbcRepository deviceJdbcRepository;
+
+    @MockBean
+    private PassportService passportService;
+
+    @Autowired
+    private DeviceImportService deviceImportService;
+
+    @Test
+    void importDevicesShouldReportEveryRow() throws Exception {
+        Passport passport = Passport.builder()
+                .id(1L)
+                .serialPrefix("SN-")
+                .fromSerialNumber(1)
+                .toSerialNumber(100)
+                .warrantyMonths(12)
+                .build();
+
+        when(passportService.serialIndex()).thenReturn(SerialPrefixTrie.of(List.of(passport)));
+        when(deviceRepository.findExistingSerialNumbers(anyCollection())).thenReturn(Set.of("SN-2"));
+        when(deviceJdbcRepository.insertAll(anyList())).thenReturn(new int[]{1});
+
+        String csv = """
+                serialNumber,purchaseDate
+                SN-1,2024-01-01
+                SN-2,2024-01-01
+                SN-1,2024-01-01
+                SN-500,2024-01-01
+                SN-3,yesterday
+                """;
+
+        DeviceImportReport report = deviceImportService.importDevices(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))
+        );
+
+        assertEquals(1, report.accepted());
+        assertEquals(4, report.rejected());
+        assertTrue(report.rows().get(0).accepted());
+        assertEquals("Device already registered", report.rows().get(1).error());
+        assertEquals("Duplicate serial number in file", report.rows().get(2).error());
+        assertEquals("Passport not found for serial number", report.rows().get(3).error());
+        assertEquals("Invalid purchase date", report.rows().get(4).error());
+        verify(deviceRepository, times(1)).findExistingSerialNumbers(anyCollection());
+        verify(deviceJdbcRepository, times(1)).insertAll(anyList());
+    }
+}
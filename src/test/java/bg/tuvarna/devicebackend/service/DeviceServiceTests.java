@@ -1,27 +1,41 @@
 package bg.tuvarna.devicebackend.service;
 
 import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
 import bg.tuvarna.devicebackend.models.dtos.DeviceCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.DeviceListingVO;
 import bg.tuvarna.devicebackend.models.dtos.DeviceUpdateVO;
 import bg.tuvarna.devicebackend.models.entities.Device;
 import bg.tuvarna.devicebackend.models.entities.Passport;
 import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.models.enums.CountMode;
+import bg.tuvarna.devicebackend.models.enums.DeviceSortOrder;
+import bg.tuvarna.devicebackend.repositories.DeviceJdbcRepository;
 import bg.tuvarna.devicebackend.repositories.DeviceRepository;
 import bg.tuvarna.devicebackend.services.DeviceService;
 import bg.tuvarna.devicebackend.services.PassportService;
+import bg.tuvarna.devicebackend.utils.CursorPage;
+import bg.tuvarna.devicebackend.utils.CustomPage;
+import bg.tuvarna.devicebackend.utils.DeviceCursor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -30,16 +44,22 @@ public class DeviceServiceTests {
     @MockBean
     private DeviceRepository deviceRepository;
 
+    @MockBean
+    private DeviceJdbcRepository deviceJdbcRepository;
+
     @MockBean
     private PassportService passportService;
 
     @Autowired
     private DeviceService deviceService;
 
+    private static DeviceListingVO listing(String serialNumber) {
+        return new DeviceListingVO(serialNumber, LocalDate.of(2024, 1, 1), null, null, 1L, "Passport", "Model", null, null, 0L);
+    }
+
     @Test
     void alreadyExistShouldThrowDeviceAlreadyExists() {
-        Device device = new Device();
-        when(deviceRepository.findById("SN-123")).thenReturn(Optional.of(device));
+        when(deviceRepository.existsById("SN-123")).thenReturn(true);
 
         CustomException ex = assertThrows(
                 CustomException.class,
@@ -51,7 +71,7 @@ public class DeviceServiceTests {
 
     @Test
     void alreadyExistShouldPassWhenDeviceNotFound() {
-        when(deviceRepository.findById("SN-123")).thenReturn(Optional.empty());
+        when(deviceRepository.existsById("SN-123")).thenReturn(false);
         assertDoesNotThrow(() -> deviceService.alreadyExist("SN-123"));
     }
 
@@ -62,8 +82,6 @@ public class DeviceServiceTests {
                 LocalDate.now()
         );
 
-        when(deviceRepository.findById("SN-1")).thenReturn(Optional.empty());
-
         CustomException ex = assertThrows(
                 CustomException.class,
                 () -> deviceService.registerNewDevice(vo, null)
@@ -79,7 +97,11 @@ public class DeviceServiceTests {
                 LocalDate.now()
         );
 
-        when(deviceRepository.findById("SN-1")).thenReturn(Optional.of(new Device()));
+        Passport p = new Passport();
+        p.setWarrantyMonths(12);
+
+        when(passportService.findPassportBySerialId("SN-1")).thenReturn(p);
+        when(deviceJdbcRepository.insert(any(Device.class))).thenReturn(false);
 
         CustomException ex = assertThrows(
                 CustomException.class,
@@ -87,6 +109,7 @@ public class DeviceServiceTests {
         );
 
         assertEquals("Device already registered", ex.getMessage());
+        assertEquals(ErrorCode.AlreadyExists, ex.getErrorCode());
     }
 
     @Test
@@ -105,7 +128,7 @@ public class DeviceServiceTests {
     void isDeviceExistsShouldReturnDevice() {
         Device d = new Device();
         when(deviceRepository.existsById("SN-1")).thenReturn(true);
-        when(deviceRepository.findById("SN-1")).thenReturn(Optional.of(d));
+        when(deviceRepository.findDetailsBySerialNumber("SN-1")).thenReturn(Optional.of(d));
 
         Device result = deviceService.isDeviceExists("SN-1");
         assertNotNull(result);
@@ -118,7 +141,6 @@ public class DeviceServiceTests {
                 LocalDate.now()
         );
 
-        when(deviceRepository.findById("SN-404")).thenReturn(Optional.empty());
         when(passportService.findPassportBySerialId("SN-404")).thenThrow(new RuntimeException());
 
         CustomException ex = assertThrows(
@@ -140,15 +162,13 @@ public class DeviceServiceTests {
         Passport p = new Passport();
         p.setWarrantyMonths(12);
 
-        Device saved = new Device();
-        saved.setSerialNumber("SN-100");
-
-        when(deviceRepository.findById("SN-100")).thenReturn(Optional.empty());
         when(passportService.findPassportBySerialId("SN-100")).thenReturn(p);
-        when(deviceRepository.save(any(Device.class))).thenReturn(saved);
+        when(deviceJdbcRepository.insert(any(Device.class))).thenReturn(true);
 
         Device result = deviceService.addAnonymousDevice(vo);
         assertEquals("SN-100", result.getSerialNumber());
+        assertEquals(now.plusMonths(12), result.getWarrantyExpirationDate());
+        verify(deviceRepository, never()).findById("SN-100");
     }
 
     @Test
@@ -205,4 +225,55 @@ public class DeviceServiceTests {
 
         assertEquals("Cannot delete device: renovations exist", ex.getMessage());
     }
+
+    @Test
+    void getDevicesShouldSkipCountWhenCountModeIsNone() {
+        DeviceListingVO device = listing("SN-1");
+
+        when(deviceRepository.findAllListingSlice(any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(device), PageRequest.of(0, 1), true));
+
+        CustomPage<DeviceListingVO> page = deviceService.getDevices(null, 1, 1, CountMode.NONE);
+
+        assertTrue(page.isHasNext());
+        assertNull(page.getTotalItems());
+        assertNull(page.getTotalPages());
+        assertEquals(1, page.getItems().size());
+        verify(deviceRepository, never()).findAllListing(any(Pageable.class));
+        verify(deviceRepository, never()).count();
+    }
+
+    @Test
+    void getDevicesShouldFallBackToCountWhenNoEstimateIsAvailable() {
+        when(deviceRepository.findAllListingSlice(any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(listing("SN-1")), PageRequest.of(0, 10), false));
+        when(deviceRepository.count()).thenReturn(25L);
+
+        CustomPage<DeviceListingVO> page = deviceService.getDevices(null, 1, 10, CountMode.ESTIMATED);
+
+        assertEquals(25L, page.getTotalItems());
+        assertEquals(3, page.getTotalPages());
+        assertFalse(page.isHasNext());
+    }
+
+    @Test
+    void getDevicesByCursorShouldListDevicesWithoutPurchaseDateLast() {
+        DeviceListingVO undatedB = new DeviceListingVO("B", null, null, null, null, null, null, null, null, 0L);
+        DeviceListingVO undatedC = new DeviceListingVO("C", null, null, null, null, null, null, null, null, 0L);
+
+        when(deviceRepository.findFirstPageByPurchaseDate(PageRequest.of(0, 3)))
+                .thenReturn(List.of(listing("A")));
+        when(deviceRepository.findPageWithoutPurchaseDate("", PageRequest.of(0, 2)))
+                .thenReturn(List.of(undatedB, undatedC));
+        when(deviceRepository.findPageWithoutPurchaseDate("B", PageRequest.of(0, 3)))
+                .thenReturn(List.of(undatedC));
+
+        CursorPage<DeviceListingVO> firstPage = deviceService.getDevicesByCursor(null, DeviceSortOrder.PURCHASE_DATE, 2);
+        CursorPage<DeviceListingVO> nextPage = deviceService.getDevicesByCursor(firstPage.getNextCursor(), DeviceSortOrder.PURCHASE_DATE, 2);
+
+        assertEquals(List.of("A", "B"), firstPage.getItems().stream().map(DeviceListingVO::serialNumber).toList());
+        assertNull(DeviceCursor.decode(firstPage.getNextCursor()).purchaseDate());
+        assertEquals(List.of("C"), nextPage.getItems().stream().map(DeviceListingVO::serialNumber).toList());
+        assertNull(nextPage.getNextCursor());
+    }
 }
@@ -2,6 +2,7 @@ package bg.tuvarna.devicebackend.service;
 
 import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
 import bg.tuvarna.devicebackend.models.dtos.PassportCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.PassportSerialLookupVO;
 import bg.tuvarna.devicebackend.models.dtos.PassportUpdateVO;
 import bg.tuvarna.devicebackend.models.entities.Passport;
 import bg.tuvarna.devicebackend.repositories.PassportRepository;
@@ -21,7 +22,7 @@ import java.util.Optional;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest
+@SpringBootTest(properties = "passports.serial-index.enabled=false")
 @ActiveProfiles("test")
 public class PassportServiceTests {
 
@@ -42,8 +43,8 @@ public class PassportServiceTests {
                 100
         );
 
-        when(passportRepository.findByFromSerialNumberBetween("SN-", 1, 100))
-                .thenReturn(List.of(new Passport()));
+        when(passportRepository.existsOverlapping("SN-", 1, 100))
+                .thenReturn(true);
 
         CustomException ex = assertThrows(
                 CustomException.class,
@@ -67,8 +68,8 @@ public class PassportServiceTests {
         Passport p = new Passport();
         p.setId(1L);
 
-        when(passportRepository.findByFromSerialNumberBetween("PF-", 10, 20))
-                .thenReturn(List.of());
+        when(passportRepository.existsOverlapping("PF-", 10, 20))
+                .thenReturn(false);
         when(passportRepository.save(any(Passport.class)))
                 .thenReturn(p);
 
@@ -78,6 +79,25 @@ public class PassportServiceTests {
         assertEquals(1L, saved.getId());
     }
 
+    @Test
+    void createShouldThrowWhenRangeIsReversed() {
+        PassportCreateVO vo = new PassportCreateVO(
+                "Passport Z",
+                "Model Z",
+                "RV-",
+                12,
+                200,
+                100
+        );
+
+        CustomException ex = assertThrows(
+                CustomException.class,
+                () -> passportService.create(vo)
+        );
+
+        assertEquals("From serial number must not be greater than to serial number", ex.getMessage());
+    }
+
     @Test
     void updateShouldThrowNotFound() {
         when(passportRepository.findById(99L)).thenReturn(Optional.empty());
@@ -100,12 +120,9 @@ public class PassportServiceTests {
         existing.setFromSerialNumber(1);
         existing.setToSerialNumber(100);
 
-        Passport other = new Passport();
-        other.setId(99L);
-
         when(passportRepository.findById(5L)).thenReturn(Optional.of(existing));
-        when(passportRepository.findByFromSerialNumberBetween("SN-", 1, 100))
-                .thenReturn(List.of(existing, other));
+        when(passportRepository.existsOverlappingOther("SN-", 1, 100, 5L))
+                .thenReturn(true);
 
         PassportUpdateVO vo = new PassportUpdateVO(
                 null,
@@ -133,8 +150,8 @@ public class PassportServiceTests {
         p.setToSerialNumber(20);
 
         when(passportRepository.findById(10L)).thenReturn(Optional.of(p));
-        when(passportRepository.findByFromSerialNumberBetween("AA-", 10, 20))
-                .thenReturn(List.of(p));
+        when(passportRepository.existsOverlappingOther("AA-", 10, 20, 10L))
+                .thenReturn(false);
         when(passportRepository.save(any(Passport.class))).thenReturn(p);
 
         PassportUpdateVO vo = new PassportUpdateVO(
@@ -188,6 +205,29 @@ public class PassportServiceTests {
         assertNotNull(found);
     }
 
+    @Test
+    void findPassportsBySerialIdsShouldReportEachSerial() {
+        Passport p = new Passport();
+        p.setId(3L);
+        p.setSerialPrefix("SN-");
+        p.setFromSerialNumber(100);
+        p.setToSerialNumber(200);
+
+        when(passportRepository.findAll()).thenReturn(List.of(p));
+
+        List<PassportSerialLookupVO> results = passportService.findPassportsBySerialIds(
+                List.of("SN-150", "SN-999", "SN-150")
+        );
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).found());
+        assertEquals(3L, results.get(0).passport().id());
+        assertFalse(results.get(1).found());
+        assertNull(results.get(1).passport());
+        assertTrue(results.get(2).found());
+        verify(passportRepository, times(1)).findAll();
+    }
+
     @Test
     void deleteShouldThrowMappingException() {
         doThrow(new RuntimeException())
@@ -1,5 +1,6 @@
 package bg.tuvarna.devicebackend.service;
 
+import bg.tuvarna.devicebackend.models.dtos.RenovationBulkReport;
 import bg.tuvarna.devicebackend.models.dtos.RenovationCreateVO;
 import bg.tuvarna.devicebackend.models.entities.Device;
 import bg.tuvarna.devicebackend.models.entities.Renovation;
@@ -13,10 +14,16 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
@@ -61,4 +68,31 @@ public class RenovationServiceTests {
         assertEquals(deviceId, result.getDevice().getSerialNumber());
         assertEquals("Changed compressor", result.getDescription());
     }
+
+    @Test
+    public void saveAllShouldReportEachItem() {
+        Device device = new Device();
+        device.setSerialNumber("ABC123");
+
+        when(deviceService.findExistingSerialNumbers(anyCollection())).thenReturn(Set.of("ABC123"));
+        when(deviceService.getDeviceReference("ABC123")).thenReturn(device);
+        when(renovationRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Renovation> renovations = invocation.getArgument(0);
+            renovations.get(0).setId(10L);
+            return renovations;
+        });
+
+        RenovationBulkReport report = renovationService.saveAll(List.of(
+                new RenovationCreateVO("ABC123", "Changed compressor", LocalDate.now()),
+                new RenovationCreateVO("MISSING", "Changed fan", LocalDate.now()),
+                new RenovationCreateVO("ABC123", "", LocalDate.now())
+        ));
+
+        assertEquals(1, report.accepted());
+        assertEquals(2, report.rejected());
+        assertEquals(10L, report.items().get(0).id());
+        assertEquals("Device not registered", report.items().get(1).error());
+        assertEquals("Description is required", report.items().get(2).error());
+        verify(deviceService, times(1)).findExistingSerialNumbers(anyCollection());
+    }
 }
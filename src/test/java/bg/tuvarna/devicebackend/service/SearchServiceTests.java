@@ -0,0 +1,281 @@
+package bg.tuvarna.devicebackend.service;
+
+import bg.tuvarna.devicebackend.config.DatabasePlatform;
+import bg.tuvarna.devicebackend.models.dtos.DeviceListingVO;
+import bg.tuvarna.devicebackend.models.dtos.UserListing;
+import bg.tuvarna.devicebackend.models.entities.Device;
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.models.enums.CountMode;
+import bg.tuvarna.devicebackend.models.enums.UserRole;
+import bg.tuvarna.devicebackend.repositories.DeviceRepository;
+import bg.tuvarna.devicebackend.repositories.PassportRepository;
+import bg.tuvarna.devicebackend.repositories.UserRepository;
+import bg.tuvarna.devicebackend.services.DeviceService;
+import bg.tuvarna.devicebackend.services.SearchService;
+import bg.tuvarna.devicebackend.services.UserService;
+import bg.tuvarna.devicebackend.utils.CustomPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The LIKE search runs on H2. The full-text search and the search document triggers only exist in
+ * PostgreSQL and are skipped unless the tests point at it, e.g.
+ * {@code ./gradlew test -Dspring.datasource.url=jdbc:postgresql://... -Dspring.datasource.username=...}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SearchServiceTests {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private DeviceService deviceService;
+    @Autowired
+    private SearchService searchService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private DeviceRepository deviceRepository;
+    @Autowired
+    private PassportRepository passportRepository;
+    @Autowired
+    private DatabasePlatform databasePlatform;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Device> devices = new ArrayList<>();
+    private final List<User> users = new ArrayList<>();
+    private Passport passport;
+    private User petrov;
+    private User ivanov;
+    private User maria;
+    private User georgi;
+
+    @BeforeEach
+    void setUp() {
+        if (databasePlatform.isPostgres()) {
+            new ResourceDatabasePopulator(new ClassPathResource("schema-postgresql.sql")).execute(dataSource);
+        }
+
+        passport = passportRepository.save(Passport.builder()
+                .name("Search fridge")
+                .model("ZX-200")
+                .serialPrefix("ZX-")
+                .fromSerialNumber(1)
+                .toSerialNumber(100)
+                .warrantyMonths(12)
+                .build());
+
+        petrov = saveUser("Zyx Petrov", "petrov@abv.bg", "0888100001", UserRole.USER);
+        ivanov = saveUser("Zyx Ivanov", "ivanov@abv.bg", "0888100002", UserRole.USER);
+        maria = saveUser("Maria", "zyx@abv.bg", "0888100003", UserRole.USER);
+        georgi = saveUser("Georgi", "georgi@abv.bg", "0888100004", UserRole.USER);
+        saveUser("Zyx Admin", "zyx.admin@abv.bg", "0888100005", UserRole.ADMIN);
+
+        saveDevice("ZX-1", petrov);
+        saveDevice("ZX-2", ivanov);
+        saveDevice("ZX-3", georgi);
+    }
+
+    @AfterEach
+    void tearDown() {
+        deviceRepository.deleteAll(devices);
+        userRepository.deleteAll(users);
+        passportRepository.delete(passport);
+    }
+
+    @Test
+    void searchModeShouldDefaultToLike() {
+        assertFalse(searchService.isFullText());
+    }
+
+    @Test
+    void getUsersShouldPageLikeMatchesWithCount() {
+        CustomPage<UserListing> first = userService.getUsers("zyx", 1, 2, CountMode.EXACT);
+        CustomPage<UserListing> second = userService.getUsers("zyx", 2, 2, CountMode.EXACT);
+
+        assertEquals(3, first.getTotalItems());
+        assertEquals(2, first.getTotalPages());
+        assertTrue(first.isHasNext());
+        assertEquals(List.of(petrov.getId(), ivanov.getId()), first.getItems().stream().map(UserListing::id).toList());
+        assertEquals(List.of(maria.getId()), second.getItems().stream().map(UserListing::id).toList());
+        assertFalse(second.isHasNext());
+    }
+
+    @Test
+    void getUsersShouldPageLikeMatchesWithoutCount() {
+        CustomPage<UserListing> first = userService.getUsers("zyx", 1, 2, CountMode.NONE);
+        CustomPage<UserListing> second = userService.getUsers("zyx", 2, 2, CountMode.NONE);
+
+        assertNull(first.getTotalItems());
+        assertTrue(first.isHasNext());
+        assertEquals(List.of(petrov.getId(), ivanov.getId()), first.getItems().stream().map(UserListing::id).toList());
+        assertEquals(List.of(maria.getId()), second.getItems().stream().map(UserListing::id).toList());
+        assertFalse(second.isHasNext());
+    }
+
+    @Test
+    void getUsersShouldMatchOnDevicePassport() {
+        CustomPage<UserListing> page = userService.getUsers("zx-200", 1, 10, CountMode.EXACT);
+
+        assertEquals(
+                List.of(petrov.getId(), ivanov.getId(), georgi.getId()),
+                page.getItems().stream().map(UserListing::id).toList()
+        );
+    }
+
+    @Test
+    void getDevicesShouldPageLikeMatchesInBothCountModes() {
+        CustomPage<DeviceListingVO> first = deviceService.getDevices("zx-", 1, 2, CountMode.EXACT);
+        CustomPage<DeviceListingVO> second = deviceService.getDevices("zx-", 2, 2, CountMode.EXACT);
+
+        assertEquals(3, first.getTotalItems());
+        assertEquals(2, first.getTotalPages());
+        assertEquals(Set.of("ZX-1", "ZX-2", "ZX-3"), serialNumbers(first, second));
+
+        CustomPage<DeviceListingVO> firstSlice = deviceService.getDevices("zx-", 1, 2, CountMode.NONE);
+        CustomPage<DeviceListingVO> secondSlice = deviceService.getDevices("zx-", 2, 2, CountMode.NONE);
+
+        assertNull(firstSlice.getTotalItems());
+        assertTrue(firstSlice.isHasNext());
+        assertFalse(secondSlice.isHasNext());
+        assertEquals(Set.of("ZX-1", "ZX-2", "ZX-3"), serialNumbers(firstSlice, secondSlice));
+    }
+
+    @Test
+    void getDevicesShouldMatchOnOwner() {
+        CustomPage<DeviceListingVO> page = deviceService.getDevices("zyx", 1, 10, CountMode.EXACT);
+
+        assertEquals(Set.of("ZX-1", "ZX-2"), serialNumbers(page));
+    }
+
+    @Test
+    void searchUsersShouldPageFullTextMatches() {
+        assumeTrue(databasePlatform.isPostgres());
+        SearchService fullText = fullTextSearch();
+
+        Page<Long> first = fullText.searchUsers("zyx", PageRequest.of(0, 2));
+        Page<Long> second = fullText.searchUsers("zyx", PageRequest.of(1, 2));
+
+        assertEquals(3, first.getTotalElements());
+        assertEquals(
+                Set.of(petrov.getId(), ivanov.getId(), maria.getId()),
+                Set.copyOf(Stream.concat(first.getContent().stream(), second.getContent().stream()).toList())
+        );
+
+        Slice<Long> firstSlice = fullText.searchUserSlice("zyx", PageRequest.of(0, 2));
+        Slice<Long> secondSlice = fullText.searchUserSlice("zyx", PageRequest.of(1, 2));
+
+        assertTrue(firstSlice.hasNext());
+        assertFalse(secondSlice.hasNext());
+        assertEquals(first.getContent(), firstSlice.getContent());
+        assertEquals(second.getContent(), secondSlice.getContent());
+    }
+
+    @Test
+    void searchDevicesShouldPageFullTextMatches() {
+        assumeTrue(databasePlatform.isPostgres());
+        SearchService fullText = fullTextSearch();
+
+        Page<String> first = fullText.searchDevices("zx-200", PageRequest.of(0, 2));
+        Page<String> second = fullText.searchDevices("zx-200", PageRequest.of(1, 2));
+
+        assertEquals(3, first.getTotalElements());
+        assertEquals(
+                Set.of("ZX-1", "ZX-2", "ZX-3"),
+                Set.copyOf(Stream.concat(first.getContent().stream(), second.getContent().stream()).toList())
+        );
+
+        Slice<String> firstSlice = fullText.searchDeviceSlice("zx-200", PageRequest.of(0, 2));
+        Slice<String> secondSlice = fullText.searchDeviceSlice("zx-200", PageRequest.of(1, 2));
+
+        assertTrue(firstSlice.hasNext());
+        assertFalse(secondSlice.hasNext());
+        assertEquals(first.getContent(), firstSlice.getContent());
+        assertEquals(second.getContent(), secondSlice.getContent());
+    }
+
+    @Test
+    void userUpdateShouldRefreshDeviceSearchDocument() {
+        assumeTrue(databasePlatform.isPostgres());
+
+        jdbcTemplate.update("update users set full_name = ? where id = ?", "Renamed Owner", georgi.getId());
+
+        assertTrue(searchDocument("ZX-3").contains("renamed owner"));
+        assertEquals(List.of("ZX-3"), fullTextSearch().searchDevices("renamed owner", PageRequest.of(0, 10)).getContent());
+    }
+
+    @Test
+    void passportUpdateShouldRefreshDeviceSearchDocument() {
+        assumeTrue(databasePlatform.isPostgres());
+
+        jdbcTemplate.update("update passports set model = ? where id = ?", "QW-300", passport.getId());
+
+        for (String serialNumber : List.of("ZX-1", "ZX-2", "ZX-3")) {
+            assertTrue(searchDocument(serialNumber).contains("qw-300"));
+            assertFalse(searchDocument(serialNumber).contains("zx-200"));
+        }
+    }
+
+    private SearchService fullTextSearch() {
+        return new SearchService(deviceRepository, userRepository, "fulltext");
+    }
+
+    private String searchDocument(String serialNumber) {
+        return jdbcTemplate.queryForObject(
+                "select search_document from devices where serial_number = ?", String.class, serialNumber
+        );
+    }
+
+    @SafeVarargs
+    private static Set<String> serialNumbers(CustomPage<DeviceListingVO>... pages) {
+        return Stream.of(pages)
+                .flatMap(page -> page.getItems().stream())
+                .map(DeviceListingVO::serialNumber)
+                .collect(Collectors.toSet());
+    }
+
+    private User saveUser(String fullName, String email, String phone, UserRole role) {
+        User user = userRepository.save(User.builder()
+                .fullName(fullName)
+                .email(email)
+                .phone(phone)
+                .role(role)
+                .build());
+        users.add(user);
+        return user;
+    }
+
+    private void saveDevice(String serialNumber, User owner) {
+        Device device = new Device();
+        device.setSerialNumber(serialNumber);
+        device.setPassport(passport);
+        device.setUser(owner);
+        devices.add(deviceRepository.save(device));
+    }
+}
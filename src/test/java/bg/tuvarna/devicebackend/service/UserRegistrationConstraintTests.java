@@ -0,0 +1,72 @@
+package bg.tuvarna.devicebackend.service;
+
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.models.dtos.UserCreateVO;
+import bg.tuvarna.devicebackend.repositories.UserRepository;
+import bg.tuvarna.devicebackend.services.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * Registrations that race past the contact check: the unique indexes of the database reject them and
+ * the violated index decides the message.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UserRegistrationConstraintTests {
+    @SpyBean
+    private UserRepository userRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(List.of()).when(userRepository).findContacts(anyString(), anyString());
+
+        userService.register(user("race@abv.bg", "0888555000"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from users where email in ('race@abv.bg', 'other@abv.bg')");
+    }
+
+    @Test
+    void registerShouldReportDuplicatePhoneFromDatabase() {
+        CustomException ex = assertThrows(
+                CustomException.class,
+                () -> userService.register(user("other@abv.bg", "0888555000"))
+        );
+
+        assertEquals("Phone already taken", ex.getMessage());
+    }
+
+    @Test
+    void registerShouldReportDuplicateEmailFromDatabase() {
+        CustomException ex = assertThrows(
+                CustomException.class,
+                () -> userService.register(user("race@abv.bg", "0888555111"))
+        );
+
+        assertEquals("Email already taken", ex.getMessage());
+    }
+
+    private UserCreateVO user(String email, String phone) {
+        return new UserCreateVO("Race", "Az$um_RACE123", email, phone, "Varna", null, null);
+    }
+}
@@ -1,6 +1,7 @@
 package bg.tuvarna.devicebackend.service;
 
 import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.models.dtos.UserContact;
 import bg.tuvarna.devicebackend.models.dtos.UserCreateVO;
 import bg.tuvarna.devicebackend.models.entities.User;
 import bg.tuvarna.devicebackend.repositories.UserRepository;
@@ -15,7 +16,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDate;
-import java.util.Optional;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -46,7 +47,8 @@ public class UserServiceTests {
                 "123451"
         );
 
-        when(userRepository.getByPhone("+123")).thenReturn(new User());
+        when(userRepository.findContacts("Email", "+123"))
+                .thenReturn(List.of(new UserContact(2L, "other@abv.bg", "+123")));
 
         CustomException ex = assertThrows(
                 CustomException.class,
@@ -68,8 +70,8 @@ public class UserServiceTests {
                 "123451"
         );
 
-        when(userRepository.findByEmailOrPhone(userCreateVO.email())).thenReturn(Optional.of(new User(userCreateVO)));
-        when(userRepository.getByPhone(userCreateVO.phone())).thenReturn(null);
+        when(userRepository.findContacts(userCreateVO.email(), userCreateVO.phone()))
+                .thenReturn(List.of(new UserContact(2L, "EMAIL", "+999")));
 
 
         CustomException ex = assertThrows(
@@ -79,4 +81,4 @@ public class UserServiceTests {
 
         assertEquals("Email already taken", ex.getMessage());
     }
-}
\ No newline at end of file
+}
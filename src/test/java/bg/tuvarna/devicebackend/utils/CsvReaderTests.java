@@ -0,0 +1,30 @@
+package bg.tuvarna.devicebackend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvReaderTests {
+
+    @Test
+    void readRecordShouldHandleQuotesAndLineBreaks() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(
+                "SN-1,2024-01-01\r\n\"SN,2\",\"multi\nline \"\"quoted\"\"\"\nSN-3,"
+        ));
+
+        assertEquals(List.of("SN-1", "2024-01-01"), reader.readRecord());
+        assertEquals(1, reader.getRecordLine());
+
+        assertEquals(List.of("SN,2", "multi\nline \"quoted\""), reader.readRecord());
+        assertEquals(2, reader.getRecordLine());
+
+        assertEquals(List.of("SN-3", ""), reader.readRecord());
+        assertEquals(4, reader.getRecordLine());
+
+        assertNull(reader.readRecord());
+    }
+}
@@ -0,0 +1,34 @@
+package bg.tuvarna.devicebackend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvTests {
+
+    @Test
+    void lineShouldQuoteOnlyWhenNeeded() {
+        assertEquals(
+                "SN-1,2024-01-31,,\"Doe, John\",\"say \"\"hi\"\"\"\r\n",
+                Csv.line("SN-1", LocalDate.of(2024, 1, 31), null, "Doe, John", "say \"hi\"")
+        );
+    }
+
+    @Test
+    void escapeShouldQuoteLineBreaks() {
+        assertEquals("\"a\nb\"", Csv.escape("a\nb"));
+        assertEquals("plain", Csv.escape("plain"));
+    }
+
+    @Test
+    void escapeShouldDefuseFormulas() {
+        assertEquals("'=1+2", Csv.escape("=1+2"));
+        assertEquals("'+359888123456", Csv.escape("+359888123456"));
+        assertEquals("'-2", Csv.escape("-2"));
+        assertEquals("'@SUM(A1)", Csv.escape("@SUM(A1)"));
+        assertEquals("\"'=HYPERLINK(\"\"http://x\"\")\"", Csv.escape("=HYPERLINK(\"http://x\")"));
+        assertEquals("SN-1", Csv.escape("SN-1"));
+    }
+}
@@ -0,0 +1,74 @@
+package bg.tuvarna.devicebackend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringCacheTests {
+
+    @Test
+    void getShouldReturnNullAfterTtl() {
+        AtomicLong now = new AtomicLong();
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofSeconds(30), now::get);
+
+        cache.put("SN-1", "value");
+        now.addAndGet(Duration.ofSeconds(29).toNanos());
+        assertEquals("value", cache.get("SN-1"));
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertNull(cache.get("SN-1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void putShouldDropOldestWhenFull() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, Duration.ofMinutes(1));
+
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+
+        assertNull(cache.get("a"));
+        assertEquals("2", cache.get("b"));
+        assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    void putShouldDropLeastRecentlyReadWhenFull() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, Duration.ofMinutes(1));
+
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    void stripedCacheShouldStayWithinMaxSize() {
+        ExpiringCache<Integer, String> cache = new ExpiringCache<>(64, Duration.ofMinutes(1), 4);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, "value");
+        }
+
+        assertEquals(64, cache.size());
+        assertEquals("value", cache.get(999));
+    }
+
+    @Test
+    void invalidateAllShouldClearEntries() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+        cache.put("a", "1");
+
+        cache.invalidateAll();
+
+        assertNull(cache.get("a"));
+    }
+}
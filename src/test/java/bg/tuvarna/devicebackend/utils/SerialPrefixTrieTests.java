@@ -0,0 +1,73 @@
+package bg.tuvarna.devicebackend.utils;
+
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SerialPrefixTrieTests {
+
+    private static Passport passport(Long id, String prefix, int from, int to) {
+        return Passport.builder()
+                .id(id)
+                .serialPrefix(prefix)
+                .fromSerialNumber(from)
+                .toSerialNumber(to)
+                .build();
+    }
+
+    @Test
+    void findShouldReturnPassportInRange() {
+        SerialPrefixTrie trie = SerialPrefixTrie.of(List.of(
+                passport(1L, "SN-", 1, 100),
+                passport(2L, "SN-", 101, 200),
+                passport(3L, "AB", 1, 50)
+        ));
+
+        assertEquals(1L, trie.find("SN-1").getId());
+        assertEquals(2L, trie.find("SN-150").getId());
+        assertEquals(3L, trie.find("AB50").getId());
+    }
+
+    @Test
+    void findShouldReturnNullOutsideRanges() {
+        SerialPrefixTrie trie = SerialPrefixTrie.of(List.of(
+                passport(1L, "SN-", 10, 20),
+                passport(2L, "SN-", 30, 40)
+        ));
+
+        assertNull(trie.find("SN-25"));
+        assertNull(trie.find("SN-5"));
+        assertNull(trie.find("SN-41"));
+        assertNull(trie.find("SN-"));
+        assertNull(trie.find("SN-abc"));
+        assertNull(trie.find("XX-15"));
+    }
+
+    @Test
+    void findShouldPreferLongestPrefix() {
+        SerialPrefixTrie trie = SerialPrefixTrie.of(List.of(
+                passport(1L, "SB", 1, 999999),
+                passport(2L, "SB1", 1, 9999)
+        ));
+
+        assertEquals(2L, trie.find("SB12345").getId());
+        assertEquals(1L, trie.find("SB22345").getId());
+    }
+
+    @Test
+    void withAndWithoutShouldNotChangeOriginal() {
+        SerialPrefixTrie original = SerialPrefixTrie.of(List.of(passport(1L, "SN-", 1, 100)));
+
+        SerialPrefixTrie updated = original.with(passport(1L, "SN-", 200, 300));
+        SerialPrefixTrie removed = updated.without(1L);
+
+        assertEquals(1L, original.find("SN-50").getId());
+        assertNull(updated.find("SN-50"));
+        assertEquals(1L, updated.find("SN-250").getId());
+        assertNull(removed.find("SN-250"));
+        assertEquals(0, removed.size());
+    }
+}
@@ -0,0 +1,62 @@
+package bg.tuvarna.devicebackend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTests {
+
+    @Test
+    void executeShouldShareOneComputationBetweenConcurrentCallers() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("SN-1", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "passport";
+            }));
+            started.await();
+
+            Future<String> follower = executor.submit(() -> singleFlight.execute("SN-1", () -> {
+                calls.incrementAndGet();
+                return "other";
+            }));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals("passport", leader.get(5, TimeUnit.SECONDS));
+            assertEquals("passport", follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void executeShouldRunAgainAfterCompletion() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        singleFlight.execute("SN-1", calls::incrementAndGet);
+        singleFlight.execute("SN-1", calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}